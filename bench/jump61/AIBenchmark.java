@@ -0,0 +1,71 @@
+package jump61;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JMH benchmarks of complete AI moves, on boards of several sizes and
+ *  to several fixed depths (with no time limit), from an opening
+ *  position as used in self-play.  Each move is chosen by a new AI, so
+ *  that no search benefits from the transposition table of an earlier
+ *  one.
+ *  @author yuxinye
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AIBenchmark {
+
+    /** Board size. */
+    @Param({ "4", "6", "8" })
+    public int size;
+
+    /** Search depth. */
+    @Param({ "1", "2", "3" })
+    public int depth;
+
+    /** Set up the game in which moves are chosen. */
+    @Setup(Level.Trial)
+    public void setUpGame() {
+        _game = Game.headless();
+        _game.setSize(size);
+        _game.setHashSize(Defaults.SELFPLAY_HASH_SIZE);
+        _game.setMoveTime(Integer.MAX_VALUE);
+        _game.setSearchDepth(depth);
+        SelfPlay.playOpening(_game, SEED, (n) -> { });
+    }
+
+    /** Create the AI that will choose the next move. */
+    @Setup(Level.Invocation)
+    public void setUpPlayer() {
+        _player = new AI(_game, _game.getBoard().whoseMove(), SEED);
+    }
+
+    /** Choose a move. */
+    @Benchmark
+    public String getMove() {
+        return _player.getMove();
+    }
+
+    /** Seed of the opening moves and AIs. */
+    private static final long SEED = 61;
+
+    /** The game in which moves are chosen. */
+    private Game _game;
+    /** The player choosing a move. */
+    private AI _player;
+}
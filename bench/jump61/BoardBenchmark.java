@@ -0,0 +1,172 @@
+package jump61;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static jump61.Side.*;
+
+/** JMH benchmarks of the basic Board operations, on boards of several
+ *  sizes, and of the corresponding BitBoard operations.  Most use a
+ *  position reached by random play from the initial one, roughly
+ *  half-way to a win; the cascade benchmarks use a board on which one
+ *  move makes every square jump.
+ *  @author yuxinye
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+
+    /** Board size. */
+    @Param({ "4", "6", "10" })
+    public int size;
+
+    /** Set up the positions used by the benchmarks. */
+    @Setup
+    public void setUp() {
+        _board = new Board(size);
+        Random random = new Random(SEED);
+        for (int k = size * size; k > 0; k -= 1) {
+            int n;
+            do {
+                n = random.nextInt(size * size);
+            } while (!_board.isLegal(_board.whoseMove(), n));
+            _board.addSpot(_board.whoseMove(), n);
+        }
+        _move = size * size / 2;
+        while (!_board.isLegal(_board.whoseMove(), _move)) {
+            _move += 1;
+        }
+
+        _cascade = new Board(size);
+        int last = size * size - 1;
+        for (int n = 0; n < last; n += 1) {
+            _cascade.set(_cascade.row(n), _cascade.col(n),
+                         _cascade.neighbors(n), RED);
+        }
+        _cascade.set(size, size, 2 - size % 2, BLUE);
+        assert _cascade.whoseMove() == RED;
+
+        _bitBoard = new BitBoard(_board);
+        _bitCascade = new BitBoard(_cascade);
+    }
+
+    /** Make and undo a move in the middle of a game. */
+    @Benchmark
+    public Board addSpotUndo() {
+        _board.addSpot(_board.whoseMove(), _move);
+        _board.undo();
+        return _board;
+    }
+
+    /** Make and undo a move in a corner of a board whose squares are all
+     *  full, so that the move causes a cascade through the whole board
+     *  (ending in a win). */
+    @Benchmark
+    public Board cascadeUndo() {
+        _cascade.addSpot(RED, 0);
+        _cascade.undo();
+        return _cascade;
+    }
+
+    /** Make a move in the middle of a game, find the canonical key of
+     *  the result (as a search does when it probes its transposition
+     *  table), and undo the move. */
+    @Benchmark
+    public long addSpotCanonicalKeyUndo() {
+        _board.addSpot(_board.whoseMove(), _move);
+        long key = _board.canonicalKey();
+        _board.undo();
+        return key;
+    }
+
+    /** Count the legal moves in the middle of a game. */
+    @Benchmark
+    public int isLegalScan() {
+        Side player = _board.whoseMove();
+        int count;
+        count = 0;
+        for (int n = size * size - 1; n >= 0; n -= 1) {
+            if (_board.isLegal(player, n)) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /** Check for a winner in the middle of a game. */
+    @Benchmark
+    public Side getWinner() {
+        return _board.getWinner();
+    }
+
+    /** Copy a board in the middle of a game. */
+    @Benchmark
+    public Board copy() {
+        return new Board(_board);
+    }
+
+    /** Make and undo a move in the middle of a game on a BitBoard. */
+    @Benchmark
+    public BitBoard bitBoardAddSpotUndo() {
+        _bitBoard.addSpot(_bitBoard.whoseMove(), _move);
+        _bitBoard.undo();
+        return _bitBoard;
+    }
+
+    /** As for cascadeUndo, on a BitBoard. */
+    @Benchmark
+    public BitBoard bitBoardCascadeUndo() {
+        _bitCascade.addSpot(RED, 0);
+        _bitCascade.undo();
+        return _bitCascade;
+    }
+
+    /** As for isLegalScan, on a BitBoard. */
+    @Benchmark
+    public int bitBoardLegalMoves() {
+        return _bitBoard.legalMoves(_bitBoard.whoseMove(), _moves);
+    }
+
+    /** Convert a board to the standard dump format. */
+    @Benchmark
+    public String toStringDump() {
+        return _board.toString();
+    }
+
+    /** Convert a board to the format used by the board command. */
+    @Benchmark
+    public String toDisplayString() {
+        return _board.toDisplayString();
+    }
+
+    /** Seed of the random moves leading to the benchmark position. */
+    private static final long SEED = 61;
+
+    /** A position in the middle of a game. */
+    private Board _board;
+    /** A legal move in _board. */
+    private int _move;
+    /** A board full of critical red squares, but for one blue corner. */
+    private Board _cascade;
+    /** BitBoard copies of _board and _cascade. */
+    private BitBoard _bitBoard, _bitCascade;
+    /** Holds the legal moves found by bitBoardLegalMoves. */
+    private final int[] _moves =
+        new int[Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE];
+}
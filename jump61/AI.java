@@ -1,20 +1,20 @@
 package jump61;
 
-import java.util.Random;
-import static jump61.Side.*;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static jump61.Utils.*;
 
 /** An automated Player.
  *  @author P. N. Hilfinger
  */
 class AI extends Player {
-    /** A large winning value. */
-    private static final int WINNINGVALUE = 10000;
     /** A new player of GAME initially COLOR that chooses moves automatically.
-     *  SEED provides a random-number seed used for choosing moves.
      */
-    AI(Game game, Side color, long seed) {
+    AI(Game game, Side color) {
         super(game, color);
-        _random = new Random(seed);
+        _table = new TranspositionTable(game.hashSize());
     }
 
     @Override
@@ -23,102 +23,209 @@ class AI extends Player {
 
         assert getSide() == board.whoseMove();
         int choice = searchForMove();
+        if (getGame().ponder()) {
+            startPondering(board, choice);
+        }
         getGame().reportMove(board.row(choice), board.col(choice));
         return String.format("%d %d", board.row(choice), board.col(choice));
     }
 
-    /** Return a move after searching the game tree to DEPTH>0 moves
-     *  from the current position. Assumes the game is not over. */
+    /** Return a move after searching the game tree from the current
+     *  position, using as many Searchers as the game's thread count.
+     *  The first searches in this thread, and determines the result; the
+     *  others run in the game's search pool, each on its own copy of the
+     *  board, and contribute only through the shared transposition table
+     *  (starting at staggered depths so as to diversify their work).
+     *  Positions covered by the game's tablebase or opening book are
+     *  not searched at all, unless the book's move is illegal, and root
+     *  moves equivalent under a symmetry of the position are searched
+     *  only once.  Positions are evaluated
+     *  by my Evaluator, and searched to my depth limit (see setEvaluator
+     *  and setSearchDepth).
+     *  The combined statistics of the Searchers are recorded in _stats
+     *  and, at message level 2, printed.  Any pondering is stopped first,
+     *  and its results are kept in the transposition table as if they
+     *  were part of this search.  Assumes the game is not over. */
     private int searchForMove() {
-        Board work = new Board(getBoard());
-        assert getSide() == work.whoseMove();
-        _foundMove = -1;
-        if (getSide() == RED) {
-            minMax(work, 2, true, 1,
-                    Integer.MIN_VALUE, Integer.MAX_VALUE);
-        } else {
-            minMax(work, 2, true, -1,
-                    Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Board board = getBoard();
+        assert getSide() == board.whoseMove();
+        boolean pondered = _ponderThread != null;
+        stopThinking();
+        _stats.clear();
+        Tablebase tablebase = getGame().tablebase(board.size());
+        if (tablebase != null) {
+            int move = tablebase.bestMove(board);
+            if (move >= 0) {
+                return move;
+            }
+        }
+        OpeningBook book = getGame().book();
+        if (book != null) {
+            int move = book.bestMove(board);
+            if (move >= 0 && board.isLegal(getSide(), move)) {
+                debug(2, "%s: book move %s", getSide(),
+                      board.moveString(move));
+                return move;
+            } else if (move >= 0) {
+                debug(1, "%s: illegal book move %s ignored", getSide(),
+                      board.moveString(move));
+            }
+        }
+        int threads = getGame().threads();
+        if (_searchers.length != threads) {
+            _searchers = new Searcher[threads];
+            for (int k = 0; k < threads; k += 1) {
+                _searchers[k] = new Searcher(_table);
+            }
+        }
+        for (Searcher searcher : _searchers) {
+            configure(searcher);
+        }
+        long start = System.nanoTime();
+        long budget = moveTime() * NANOS_PER_MILLI;
+        if (!pondered) {
+            _table.newSearch();
         }
-        return _foundMove;
-    }
-
 
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _foundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _foundMove. If the game is over
-     *  on BOARD, does not set _foundMove. */
-    private int minMax(Board board, int depth, boolean saveMove,
-                       int sense, int alpha, int beta) {
-        int eval;
-        int bestMove = -1;
-        int bestSoFar;
-        if (depth == 0 || board.getWinner() != null) {
-            return staticEval(board, WINNINGVALUE);
+        ArrayList<Future<?>> helpers = new ArrayList<>();
+        for (int k = 1; k < threads; k += 1) {
+            Searcher helper = _searchers[k];
+            Board copy = new Board(board);
+            int firstDepth = 1 + k % 2;
+            helper.resume();
+            helpers.add(getGame().searchPool().submit(
+                () -> helper.search(copy, start, budget, firstDepth,
+                                    false)));
         }
-        if (sense == 1) {
-            bestSoFar = Integer.MIN_VALUE;
-            for (int i = 0; i < board.size() * board.size(); i++) {
-                if (board.isLegal(RED, i)) {
-                    board.addSpot(RED, i);
-                    eval = minMax(board, depth - 1, false, -1, alpha, beta);
-                    board.undo();
-                    if (eval >= bestSoFar) {
-                        bestMove = i;
-                        bestSoFar = eval;
-                        alpha = Math.max(alpha, eval);
-                    }
-                    alpha = Math.max(alpha, bestSoFar);
-                    if (beta < alpha) {
-                        break;
-                    }
-                }
+        int move = _searchers[0].search(new Board(board), start, budget, 1,
+                                        true);
+        for (int k = 1; k < threads; k += 1) {
+            _searchers[k].stop();
+        }
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException | ExecutionException excp) {
+                throw new Error("search thread failed", excp);
             }
-        } else {
-            bestSoFar = Integer.MAX_VALUE;
-            for (int i = 0; i < board.size() * board.size(); i++) {
-                if (board.isLegal(BLUE, i)) {
-                    board.addSpot(BLUE, i);
-                    eval = minMax(board, depth - 1, false, 1, alpha, beta);
-                    board.undo();
-                    if (eval <= bestSoFar) {
-                        bestMove = i;
-                        bestSoFar = eval;
-                    }
-                    beta = Math.min(beta, bestSoFar);
-                    if (beta < alpha) {
-                        break;
-                    }
+        }
+        for (Searcher searcher : _searchers) {
+            _stats.add(searcher.stats());
+        }
+        _stats.setDepth(_searchers[0].stats().depth());
+        _stats.setElapsed(System.nanoTime() - start);
+        debug(2, "%s: %s", getSide(), _stats);
+        return move;
+    }
+
+    /** Start searching, in a background thread, the position expected
+     *  to follow MOVE from position BOARD: that is, the position after
+     *  the reply recorded for it in the transposition table, if any, and
+     *  otherwise the position after MOVE, unless the game would be over.
+     *  The search continues until stopThinking is called, or to my depth
+     *  limit. */
+    private void startPondering(Board board, int move) {
+        Board position = new Board(board);
+        position.addSpot(getSide(), move);
+        if (position.getWinner() != null) {
+            return;
+        }
+        int sym = position.canonicalSymmetry();
+        long entry = _table.probe(position.symmetricKey(sym));
+        int reply = entry == 0 ? -1 : TranspositionTable.move(entry);
+        if (reply >= 0) {
+            reply = position.symmetricSquare(Board.inverseSymmetry(sym),
+                                             reply);
+            if (position.isLegal(position.whoseMove(), reply)) {
+                position.addSpot(position.whoseMove(), reply);
+                if (position.getWinner() != null) {
+                    return;
                 }
             }
         }
-        if (saveMove) {
-            _foundMove = bestMove;
+        if (_ponderer == null) {
+            _ponderer = new Searcher(_table);
         }
-        return bestSoFar;
+        Searcher ponderer = _ponderer;
+        configure(ponderer);
+        ponderer.resume();
+        _table.newSearch();
+        _ponderThread = new Thread(
+            () -> ponderer.search(position, System.nanoTime(),
+                                  PONDER_BUDGET, 1, false),
+            "jump61-ponder");
+        _ponderThread.setDaemon(true);
+        _ponderThread.start();
     }
 
-    /** Return a heuristic estimate of the value of board position B.
-     *  Use WINNINGVALUE to indicate a win for Red and -WINNINGVALUE to
-     *  indicate a win for Blue. */
-    private int staticEval(Board b, int winningValue) {
-        if (b.getWinner() == RED) {
-            return winningValue;
+    @Override
+    void stopThinking() {
+        if (_ponderThread == null) {
+            return;
         }
-        if (b.getWinner() == BLUE) {
-            return -winningValue;
-        } else {
-            return b.numOfSide(RED) - b.numOfSide(BLUE);
+        _ponderer.stop();
+        try {
+            _ponderThread.join();
+        } catch (InterruptedException excp) {
+            throw new Error("interrupted while stopping ponder search", excp);
         }
+        _ponderThread = null;
+    }
+
+    @Override
+    void setHashSize(int megabytes) {
+        stopThinking();
+        _table.resize(megabytes);
+    }
+
+    /** Set the Evaluator and depth limit of SEARCHER to mine. */
+    private void configure(Searcher searcher) {
+        searcher.setEvaluator(_evaluator != null ? _evaluator
+                              : getGame().evaluator(getSide()));
+        searcher.setMaxDepth(_searchDepth > 0 ? _searchDepth
+                             : getGame().searchDepth());
+    }
+
+    @Override
+    SearchStats stats() {
+        return _stats;
+    }
+
+    /** Evaluate positions with EVALUATOR, rather than with my game's
+     *  Evaluator for my side. */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+    }
 
+    /** Search at most DEPTH > 0 plies deep, regardless of my game's
+     *  search depth. */
+    void setSearchDepth(int depth) {
+        _searchDepth = depth;
     }
 
-    /** A random-number generator used for move selection. */
-    private Random _random;
+    /** My Evaluator, or null to use my game's. */
+    private Evaluator _evaluator;
+
+    /** My search depth, or 0 to use my game's. */
+    private int _searchDepth;
+
+    /** Values of positions already searched, shared by my Searchers. */
+    private final TranspositionTable _table;
+
+    /** Statistics of the search for my most recent move. */
+    private final SearchStats _stats = new SearchStats();
+
+    /** The Searchers used by searchForMove. */
+    private Searcher[] _searchers = new Searcher[0];
+
+    /** The Searcher used for pondering, or null if not yet needed. */
+    private Searcher _ponderer;
+    /** The thread in which I am pondering, or null if I am not. */
+    private Thread _ponderThread;
+
+    /** Time limit in nanoseconds of a ponder search (one hour). */
+    private static final long PONDER_BUDGET = 3_600_000_000_000L;
 
-    /** Used to convey moves discovered by minMax. */
-    private int _foundMove;
+    /** Number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
 }
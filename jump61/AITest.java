@@ -0,0 +1,114 @@
+package jump61;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of AIs.
+ *  @author yuxinye
+ */
+public class AITest {
+
+    @Test
+    public void testPonder() {
+        Game game = Game.headless();
+        game.setSize(6);
+        game.setMoveTime(Integer.MAX_VALUE);
+        game.setSearchDepth(Defaults.MAX_SEARCH_DEPTH);
+        game.setPonder(true);
+        game.setAuto(Side.RED, "minmax:depth=1");
+        game.setAuto(Side.BLUE, "minmax:depth=1");
+        SelfPlay.playOpening(game, 61, (n) -> { });
+        AI ai = new AI(game, game.getBoard().whoseMove());
+        ai.setSearchDepth(Defaults.MAX_SEARCH_DEPTH);
+        ai.setMoveTime(50);
+        ai.getMove();
+        assertTrue("not pondering", pondering());
+        long start = System.nanoTime();
+        ai.stopThinking();
+        assertFalse("still pondering", pondering());
+        assertTrue("slow to stop pondering",
+                   System.nanoTime() - start < 1_000_000_000L);
+        assertNotNull("game not finished", game.playGame());
+    }
+
+    @Test
+    public void testHelpers() throws InterruptedException {
+        Game game = Game.headless();
+        game.setSize(5);
+        game.setMoveTime(20);
+        game.setThreads(3);
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) game.searchPool();
+        AI[] ais = {
+            new AI(game, Side.RED), new AI(game, Side.BLUE)
+        };
+        Board board = game.getBoard();
+        int moves;
+        moves = 0;
+        while (board.getWinner() == null) {
+            Side player = board.whoseMove();
+            String[] move =
+                ais[player == Side.RED ? 0 : 1].getMove().split(" ");
+            int r = Integer.parseInt(move[0]), c = Integer.parseInt(move[1]);
+            assertTrue("illegal move", board.isLegal(player, r, c));
+            assertTrue("helper searches left queued",
+                       pool.getQueue().isEmpty());
+            for (int k = 0; pool.getActiveCount() > 0; k += 1) {
+                assertTrue("helper searches still running", k < 100);
+                Thread.sleep(10);
+            }
+            game.makeMove(r, c);
+            moves += 1;
+        }
+        assertEquals("wrong number of helper searches", 2 * moves,
+                     pool.getCompletedTaskCount());
+    }
+
+    @Test
+    public void testHashSizeKeepsPlayers() {
+        Game game = Game.headless();
+        game.setAuto(Side.RED, "minmax:depth=3");
+        Player red = game.getPlayer(Side.RED);
+        game.setHashSize(2);
+        assertSame("player replaced", red, game.getPlayer(Side.RED));
+        assertEquals("wrong hash size", 2, game.hashSize());
+    }
+
+    @Test
+    public void testIllegalBookMove() throws IOException {
+        Game game = Game.headless();
+        game.setSize(3);
+        game.setMoveTime(10);
+        game.makeMove(1, 1);
+        Board board = game.getBoard();
+        Board canonical = new Board(3);
+        canonical.copy(board, board.canonicalSymmetry());
+        int red = 0;
+        while (canonical.color(red) != Side.RED) {
+            red += 1;
+        }
+        game.setBook(OpeningBook.read(new StringReader(
+            Long.toHexString(board.canonicalKey()) + " " + red + ":0\n")));
+        assertFalse("book move legal",
+                    board.isLegal(Side.BLUE, game.book().bestMove(board)));
+        String[] move = new AI(game, Side.BLUE).getMove().split(" ");
+        assertTrue("illegal move",
+                   board.isLegal(Side.BLUE, Integer.parseInt(move[0]),
+                                 Integer.parseInt(move[1])));
+    }
+
+    /** Return true iff some thread is pondering. */
+    private boolean pondering() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("jump61-ponder")
+                && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,418 @@
+package jump61;
+
+import java.util.Arrays;
+
+import static jump61.Side.*;
+
+/** A Jump61 position represented by bitboards, for fast move generation
+ *  and random playouts (see MCTSPlayer).  Searcher does not use it: its
+ *  evaluation, transposition-table keys, and symmetry handling are all
+ *  defined on Board, so its move generation still scans a Board.
+ *
+ *  Square #N (numbered as in Board) is bit N of a set of squares held in
+ *  two longs: bit N % 64 of word N / 64.  Since boards have at most 100
+ *  squares, two words always suffice.  The position is held in six such
+ *  planes: the squares owned by Red and by Blue, and four planes giving
+ *  the number of spots on each square in binary (bit-sliced), so that,
+ *  for example, the set of critical squares (those whose spots equal
+ *  their numbers of neighbors) is found with a few bitwise operations on
+ *  whole planes.
+ *
+ *  A cascade is computed in waves: all over-full squares explode at
+ *  once, each square's gains are found by shifting the set of exploding
+ *  squares one square left, right, up, and down and adding the four
+ *  results with bit-sliced arithmetic, and the process repeats until no
+ *  square is over-full or the mover owns every square.  Since the order
+ *  in which over-full squares explode does not affect the outcome of a
+ *  cascade, the resulting positions are those Board produces, except
+ *  that when a move wins the game, the spots on the final position may
+ *  be distributed differently (Board stops exploding squares at the
+ *  moment of the win, which comes at a different point in a different
+ *  order).
+ *
+ *  Moves are undone by restoring copies of the planes saved before each
+ *  move.  Positions are assumed to arise in play (or from a Board that
+ *  has no over-full squares).
+ *  @author yuxinye
+ */
+final class BitBoard {
+
+    /** An N x N board in the initial position. */
+    BitBoard(int N) {
+        clear(N);
+    }
+
+    /** A copy of the position on BOARD. */
+    BitBoard(Board board) {
+        copy(board);
+    }
+
+    /** Set me to the initial position on an N x N board, discarding my
+     *  undo history. */
+    void clear(int N) {
+        _size = N;
+        _masks = MASKS[N];
+        Arrays.fill(_planes, 0);
+        _planes[SPOTS] = _masks[FULL];
+        _planes[SPOTS + 1] = _masks[FULL + 1];
+        _numPieces = N * N;
+        _depth = 0;
+    }
+
+    /** Set me to the position on BOARD, discarding my undo history. */
+    void copy(Board board) {
+        clear(board.size());
+        Arrays.fill(_planes, 0);
+        for (int n = 0; n < _size * _size; n += 1) {
+            Side color = board.color(n);
+            if (color != WHITE) {
+                _planes[owner(color) + (n >>> WORD_SHIFT)] |= 1L << n;
+            }
+            setSpots(n, board.spots(n));
+        }
+        _numPieces = board.numPieces();
+    }
+
+    /** Return the number of squares on a side. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the total number of spots on the board. */
+    int numPieces() {
+        return _numPieces;
+    }
+
+    /** Return the number of spots on square #N. */
+    int spots(int n) {
+        int w = n >>> WORD_SHIFT;
+        int spots;
+        spots = 0;
+        for (int b = 0; b < SPOT_PLANES; b += 1) {
+            if ((_planes[SPOTS + 2 * b + w] & (1L << n)) != 0) {
+                spots |= 1 << b;
+            }
+        }
+        return spots;
+    }
+
+    /** Return the Side controlling square #N. */
+    Side color(int n) {
+        int w = n >>> WORD_SHIFT;
+        if ((_planes[RED_OWNER + w] & (1L << n)) != 0) {
+            return RED;
+        } else if ((_planes[BLUE_OWNER + w] & (1L << n)) != 0) {
+            return BLUE;
+        } else {
+            return WHITE;
+        }
+    }
+
+    /** Return the number of neighbors of square #N. */
+    int neighbors(int n) {
+        int w = n >>> WORD_SHIFT;
+        long bit = 1L << n;
+        if ((_masks[CORNER + w] & bit) != 0) {
+            return 2;
+        } else if ((_masks[EDGE + w] & bit) != 0) {
+            return 3;
+        } else {
+            return 4;
+        }
+    }
+
+    /** Return the Side whose move it is. */
+    Side whoseMove() {
+        return ((_numPieces + _size) & 1) == 0 ? RED : BLUE;
+    }
+
+    /** Return the winner of the current position, if the game is over,
+     *  and otherwise null. */
+    Side getWinner() {
+        if (covers(RED_OWNER)) {
+            return RED;
+        } else if (covers(BLUE_OWNER)) {
+            return BLUE;
+        } else {
+            return null;
+        }
+    }
+
+    /** Return true iff it would currently be legal for PLAYER to add a
+     *  spot to square #N. */
+    boolean isLegal(Side player, int n) {
+        return player == whoseMove() && getWinner() == null
+            && 0 <= n && n < _size * _size
+            && (_planes[owner(player.opposite()) + (n >>> WORD_SHIFT)]
+                & (1L << n)) == 0;
+    }
+
+    /** Fill MOVES with the squares to which PLAYER may add a spot (all
+     *  those not owned by the opponent), in increasing order, and return
+     *  their number.  Returns 0 if the game is over. */
+    int legalMoves(Side player, int[] moves) {
+        if (getWinner() != null) {
+            return 0;
+        }
+        int opponent = owner(player.opposite());
+        return squares(_masks[FULL] & ~_planes[opponent],
+                       _masks[FULL + 1] & ~_planes[opponent + 1], moves);
+    }
+
+    /** Fill SQUARES with the critical squares of PLAYER (those one spot
+     *  short of exploding), in increasing order, and return their
+     *  number. */
+    int criticalSquares(Side player, int[] squares) {
+        int mine = owner(player);
+        return squares(critical(0) & _planes[mine],
+                       critical(1) & _planes[mine + 1], squares);
+    }
+
+    /** Add a spot from PLAYER at square #N, and do all resulting jumping.
+     *  Assumes isLegal(PLAYER, N). */
+    void addSpot(Side player, int n) {
+        if (!isLegal(player, n)) {
+            throw new GameException("Illegal to add a spot.");
+        }
+        if (_history.length < (_depth + 1) * PLANES) {
+            _history = Arrays.copyOf(_history, 2 * _history.length);
+        }
+        System.arraycopy(_planes, 0, _history, _depth * PLANES, PLANES);
+        _depth += 1;
+        _numPieces += 1;
+        int mine = owner(player), theirs = owner(player.opposite());
+        int w = n >>> WORD_SHIFT;
+        _planes[mine + w] |= 1L << n;
+        _planes[theirs + w] &= ~(1L << n);
+        int spots = spots(n) + 1;
+        setSpots(n, spots);
+        if (spots > neighbors(n)) {
+            jump(mine, theirs);
+        }
+    }
+
+    /** Undo the effects of the last move made by addSpot, if any since
+     *  my last clear or copy. */
+    void undo() {
+        if (_depth > 0) {
+            _depth -= 1;
+            _numPieces -= 1;
+            System.arraycopy(_history, _depth * PLANES, _planes, 0, PLANES);
+        }
+    }
+
+    /** Explode all over-full squares, in waves, until there are none or
+     *  all squares belong to the player whose owner plane is MINE, giving
+     *  the squares that receive spots to that player and taking them
+     *  from the player whose owner plane is THEIRS. */
+    private void jump(int mine, int theirs) {
+        int N = _size;
+        long[] masks = _masks;
+        while (!covers(mine)) {
+            long x0 = overfull(0), x1 = overfull(1);
+            if ((x0 | x1) == 0) {
+                break;
+            }
+            long left0 = (x0 << 1) & masks[NOT_FIRST_COL],
+                left1 = ((x1 << 1) | (x0 >>> LAST_BIT))
+                & masks[NOT_FIRST_COL + 1];
+            long right0 = ((x0 >>> 1) | (x1 << LAST_BIT))
+                & masks[NOT_LAST_COL],
+                right1 = (x1 >>> 1) & masks[NOT_LAST_COL + 1];
+            long up0 = (x0 << N) & masks[FULL],
+                up1 = ((x1 << N) | (x0 >>> (WORD_SIZE - N)))
+                & masks[FULL + 1];
+            long down0 = (x0 >>> N) | (x1 << (WORD_SIZE - N)),
+                down1 = x1 >>> N;
+            wave(0, x0, left0, right0, up0, down0, mine, theirs);
+            wave(1, x1, left1, right1, up1, down1, mine, theirs);
+        }
+    }
+
+    /** Update word W of my planes for one wave of explosions, in which
+     *  the squares in EXPLODING lose as many spots as they have
+     *  neighbors, and each square gains one spot for each of the sets
+     *  A, B, C, and D (the exploding squares shifted in each direction)
+     *  that contains it.  Squares that gain spots go to the player
+     *  whose owner plane is MINE, and are taken from the one whose plane
+     *  is THEIRS. */
+    private void wave(int w, long exploding, long a, long b, long c,
+                      long d, int mine, int theirs) {
+        long[] p = _planes;
+        long corner = _masks[CORNER + w], edge = _masks[EDGE + w],
+            interior = _masks[INTERIOR + w];
+
+        long ab = a ^ b, abCarry = a & b;
+        long cd = c ^ d, cdCarry = c & d;
+        long half = ab & cd;
+        long gain0 = ab ^ cd,
+            gain1 = abCarry ^ cdCarry ^ half,
+            gain2 = (abCarry & cdCarry) | ((abCarry ^ cdCarry) & half);
+
+        long loss0 = exploding & edge,
+            loss1 = exploding & (corner | edge),
+            loss2 = exploding & interior;
+
+        int i0 = SPOTS + w, i1 = i0 + 2, i2 = i0 + 4, i3 = i0 + 6;
+        long s0 = p[i0], s1 = p[i1], s2 = p[i2], s3 = p[i3];
+        long borrow;
+        long d0 = s0 ^ loss0;
+        borrow = ~s0 & loss0;
+        long d1 = s1 ^ loss1 ^ borrow;
+        borrow = (~s1 & (loss1 | borrow)) | (loss1 & borrow);
+        long d2 = s2 ^ loss2 ^ borrow;
+        borrow = (~s2 & (loss2 | borrow)) | (loss2 & borrow);
+        long d3 = s3 ^ borrow;
+
+        long carry;
+        p[i0] = d0 ^ gain0;
+        carry = d0 & gain0;
+        p[i1] = d1 ^ gain1 ^ carry;
+        carry = (d1 & gain1) | (carry & (d1 ^ gain1));
+        p[i2] = d2 ^ gain2 ^ carry;
+        carry = (d2 & gain2) | (carry & (d2 ^ gain2));
+        p[i3] = d3 ^ carry;
+
+        long receiving = a | b | c | d;
+        p[mine + w] |= receiving;
+        p[theirs + w] &= ~receiving;
+    }
+
+    /** Return word W of the set of squares with more spots than
+     *  neighbors. */
+    private long overfull(int w) {
+        long s0 = _planes[SPOTS + w], s1 = _planes[SPOTS + 2 + w],
+            s2 = _planes[SPOTS + 4 + w], s3 = _planes[SPOTS + 6 + w];
+        long atLeast3 = s3 | s2 | (s1 & s0),
+            atLeast4 = s3 | s2,
+            atLeast5 = s3 | (s2 & (s1 | s0));
+        return (_masks[CORNER + w] & atLeast3) | (_masks[EDGE + w] & atLeast4)
+            | (_masks[INTERIOR + w] & atLeast5);
+    }
+
+    /** Return word W of the set of squares whose spots equal their
+     *  numbers of neighbors. */
+    private long critical(int w) {
+        long s0 = _planes[SPOTS + w], s1 = _planes[SPOTS + 2 + w],
+            s2 = _planes[SPOTS + 4 + w], s3 = _planes[SPOTS + 6 + w];
+        long low = ~s3 & ~s2 & s1, exactly4 = ~s3 & s2 & ~s1 & ~s0;
+        return (_masks[CORNER + w] & low & ~s0)
+            | (_masks[EDGE + w] & low & s0)
+            | (_masks[INTERIOR + w] & exactly4);
+    }
+
+    /** Return true iff the owner plane at index OWNER contains every
+     *  square. */
+    private boolean covers(int owner) {
+        return _planes[owner] == _masks[FULL]
+            && _planes[owner + 1] == _masks[FULL + 1];
+    }
+
+    /** Set the number of spots on square #N to SPOTS. */
+    private void setSpots(int n, int spots) {
+        int w = n >>> WORD_SHIFT;
+        long bit = 1L << n;
+        for (int b = 0; b < SPOT_PLANES; b += 1) {
+            if ((spots & (1 << b)) != 0) {
+                _planes[SPOTS + 2 * b + w] |= bit;
+            } else {
+                _planes[SPOTS + 2 * b + w] &= ~bit;
+            }
+        }
+    }
+
+    /** Fill RESULT with the numbers of the squares in the set whose words
+     *  are WORD0 and WORD1, in increasing order, and return their
+     *  number. */
+    private static int squares(long word0, long word1, int[] result) {
+        int count;
+        count = 0;
+        for (long bits = word0; bits != 0; bits &= bits - 1) {
+            result[count] = Long.numberOfTrailingZeros(bits);
+            count += 1;
+        }
+        for (long bits = word1; bits != 0; bits &= bits - 1) {
+            result[count] = WORD_SIZE + Long.numberOfTrailingZeros(bits);
+            count += 1;
+        }
+        return count;
+    }
+
+    /** Return the index in _planes of the owner plane of COLOR. */
+    private static int owner(Side color) {
+        return color == RED ? RED_OWNER : BLUE_OWNER;
+    }
+
+    /** Return the masks (see MASKS) for N x N boards. */
+    private static long[] masks(int N) {
+        long[] masks = new long[NUM_MASKS];
+        Board board = new Board(N);
+        for (int n = 0; n < N * N; n += 1) {
+            int w = n >>> WORD_SHIFT;
+            long bit = 1L << n;
+            masks[FULL + w] |= bit;
+            int neighbors = board.neighbors(n);
+            int set =
+                neighbors == 2 ? CORNER : neighbors == 3 ? EDGE : INTERIOR;
+            masks[set + w] |= bit;
+            if (n % N != 0) {
+                masks[NOT_FIRST_COL + w] |= bit;
+            }
+            if (n % N != N - 1) {
+                masks[NOT_LAST_COL + w] |= bit;
+            }
+        }
+        return masks;
+    }
+
+    /** Number of bits in a word. */
+    private static final int WORD_SIZE = 64;
+    /** Position of the most significant bit of a word. */
+    private static final int LAST_BIT = WORD_SIZE - 1;
+    /** Shift giving the word holding a square's bit. */
+    private static final int WORD_SHIFT = 6;
+    /** Number of bit planes giving numbers of spots. */
+    private static final int SPOT_PLANES = 4;
+
+    /** Indices in _planes of the first words of the planes of squares
+     *  owned by Red and by Blue, and of the least significant spot
+     *  plane (the others follow). */
+    private static final int RED_OWNER = 0, BLUE_OWNER = 2, SPOTS = 4;
+    /** Number of words in _planes. */
+    private static final int PLANES = SPOTS + 2 * SPOT_PLANES;
+
+    /** Indices in a mask array of the first words of the sets of all
+     *  squares, corner squares, edge squares (other than corners),
+     *  interior squares, squares not in the first column, and squares
+     *  not in the last column. */
+    private static final int FULL = 0, CORNER = 2, EDGE = 4, INTERIOR = 6,
+        NOT_FIRST_COL = 8, NOT_LAST_COL = 10;
+    /** Number of words in a mask array. */
+    private static final int NUM_MASKS = 12;
+    /** MASKS[N] holds the masks for N x N boards. */
+    private static final long[][] MASKS =
+        new long[Defaults.MAX_BOARD_SIZE + 1][];
+
+    static {
+        for (int N = 2; N <= Defaults.MAX_BOARD_SIZE; N += 1) {
+            MASKS[N] = masks(N);
+        }
+    }
+
+    /** Number of squares on a side. */
+    private int _size;
+    /** The masks for my size. */
+    private long[] _masks;
+    /** The owner and spot planes. */
+    private final long[] _planes = new long[PLANES];
+    /** Total number of spots. */
+    private int _numPieces;
+    /** Copies of _planes before each move that undo can undo, each
+     *  occupying PLANES words. */
+    private long[] _history = new long[INITIAL_HISTORY * PLANES];
+    /** Number of moves that undo can undo. */
+    private int _depth;
+
+    /** Number of moves for which _history initially has room. */
+    private static final int INITIAL_HISTORY = 64;
+}
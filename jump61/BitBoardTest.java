@@ -0,0 +1,119 @@
+package jump61;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of BitBoards, mostly by comparison with Boards.
+ *  @author yuxinye
+ */
+public class BitBoardTest {
+
+    @Test
+    public void testRandomGames() {
+        Random rand = new Random(61);
+        int[] moves = new int[Defaults.MAX_BOARD_SIZE
+                              * Defaults.MAX_BOARD_SIZE];
+        for (int N = 2; N <= Defaults.MAX_BOARD_SIZE; N += 1) {
+            for (int game = 0; game < 5; game += 1) {
+                Board B = new Board(N);
+                BitBoard C = new BitBoard(N);
+                while (B.getWinner() == null) {
+                    Side player = B.whoseMove();
+                    int count = C.legalMoves(player, moves);
+                    for (int n = 0, k = 0; n < N * N; n += 1) {
+                        if (B.isLegal(player, n)) {
+                            assertEquals("wrong legal move", n, moves[k]);
+                            k += 1;
+                        }
+                    }
+                    int move = moves[rand.nextInt(count)];
+                    B.addSpot(player, move);
+                    C.addSpot(player, move);
+                    assertEquals("wrong winner", B.getWinner(),
+                                 C.getWinner());
+                    assertEquals("wrong spot count", B.numPieces(),
+                                 C.numPieces());
+                    if (B.getWinner() == null) {
+                        checkSame(B, C);
+                    }
+                }
+                assertEquals("legal moves after a win", 0,
+                             C.legalMoves(C.whoseMove(), moves));
+                for (int k = 0; k < 10 && B.canUndo(); k += 1) {
+                    B.undo();
+                    C.undo();
+                }
+                checkSame(B, C);
+                assertEquals("copy differs", B, toBoard(new BitBoard(B)));
+            }
+        }
+    }
+
+    @Test
+    public void testCritical() {
+        Board B = new Board(4);
+        B.set(1, 1, 2, Side.RED);
+        B.set(1, 2, 3, Side.RED);
+        B.set(2, 2, 3, Side.RED);
+        B.set(2, 3, 4, Side.BLUE);
+        B.set(4, 4, 1, Side.RED);
+        int[] squares = new int[16];
+        BitBoard C = new BitBoard(B);
+        assertEquals("wrong number of critical squares", 2,
+                     C.criticalSquares(Side.RED, squares));
+        assertEquals("wrong critical square", B.sqNum(1, 1), squares[0]);
+        assertEquals("wrong critical square", B.sqNum(1, 2), squares[1]);
+        assertEquals("wrong number of critical squares", 1,
+                     C.criticalSquares(Side.BLUE, squares));
+    }
+
+    @Test
+    public void testPerft() {
+        Board B = new Board(4);
+        BitBoard C = new BitBoard(4);
+        int[][] moves = new int[5][16];
+        for (int depth = 0; depth <= 4; depth += 1) {
+            assertEquals("wrong perft count at depth " + depth,
+                         new Perft(B).count(depth), perft(C, depth, moves));
+        }
+    }
+
+    /** Return the perft count of BOARD to DEPTH, using MOVES[K] to hold
+     *  the moves at depth K. */
+    private long perft(BitBoard board, int depth, int[][] moves) {
+        if (depth == 0) {
+            return 1;
+        }
+        Side player = board.whoseMove();
+        int count = board.legalMoves(player, moves[depth]);
+        long total;
+        total = 0;
+        for (int k = 0; k < count; k += 1) {
+            board.addSpot(player, moves[depth][k]);
+            total += perft(board, depth - 1, moves);
+            board.undo();
+        }
+        return total;
+    }
+
+    /** Check that B and C hold the same position. */
+    private void checkSame(Board B, BitBoard C) {
+        assertEquals("wrong player", B.whoseMove(), C.whoseMove());
+        for (int n = 0; n < B.size() * B.size(); n += 1) {
+            assertEquals("wrong spots at " + n, B.spots(n), C.spots(n));
+            assertEquals("wrong color at " + n, B.color(n), C.color(n));
+        }
+    }
+
+    /** Return a Board holding the position on C. */
+    private Board toBoard(BitBoard C) {
+        Board B = new Board(C.size());
+        for (int n = 0; n < C.size() * C.size(); n += 1) {
+            B.set(B.row(n), B.col(n), C.spots(n), C.color(n));
+        }
+        return B;
+    }
+
+}
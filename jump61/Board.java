@@ -1,8 +1,8 @@
 package jump61;
 
-import java.util.ArrayList;
-import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Formatter;
+import java.util.Random;
 
 import java.util.function.Consumer;
 
@@ -16,6 +16,36 @@ import static jump61.Side.*;
  *  A Board may be given a notifier---a Consumer<Board> whose
  *  .accept method is called whenever the Board's contents are changed.
  *
+ *  Internally, each square is packed into a single byte holding its
+ *  spot count in the low-order SPOT_BITS bits and the ordinal of its
+ *  Side above them.  Squares are only materialized as (memoized) Square
+ *  objects when requested through get.  The total number of spots and
+ *  the number of squares of each Side are maintained incrementally as
+ *  squares change, so that numPieces, numOfSide, whoseMove, and
+ *  getWinner take constant time.  The neighbors of each square come from
+ *  tables precomputed once for each board size.  Likewise, each Board
+ *  maintains a 64-bit Zobrist key of its contents (see key()), which
+ *  serves as its hash code.
+ *
+ *  A square board has SYMMETRIES symmetries (rotations and reflections),
+ *  numbered from 0 (the identity).  The keys that a Board's images under
+ *  these symmetries would have, from which canonicalKey (the same for
+ *  all boards that are images of one another) is chosen, are not
+ *  maintained with its own key.  Instead, they are computed, in time
+ *  proportional to the size of the board, the first time they are
+ *  requested after a change.  Searches request them only at positions
+ *  they look up in a transposition table, and most of the moves they
+ *  make lead to positions that they do not look up, so this is cheaper
+ *  than updating all the keys on every change to a square.
+ *
+ *  The undo history is a journal of the previous contents of each square
+ *  changed by a move (including its whole cascade), so that making and
+ *  undoing a move costs time proportional to the number of squares it
+ *  touches rather than to the size of the board.  The history retains at
+ *  most undoLimit() moves, discarding the oldest beyond that.  Moves that
+ *  have been undone may be redone until the next addSpot, set, clear, or
+ *  copy, any of which discards them.
+ *
  *  @author yuxinye
  */
 class Board {
@@ -29,10 +59,12 @@ class Board {
     Board(int N) {
         this();
         _size = N;
-        _board = new Square[_size * _size];
-        for (int i = 0; i < N * N; i++) {
-            _board[i] = Square.INITIAL;
-        }
+        _cells = new byte[_size * _size];
+        _neighborTable = NEIGHBOR_TABLES[N];
+        _numNeighbors = NEIGHBOR_COUNTS[N];
+        _symmetryTable = SYMMETRY_TABLES[N];
+        Arrays.fill(_cells, WHITE_CELL);
+        recount();
     }
 
     /** A board whose initial contents are copied from BOARD0, but whose
@@ -51,33 +83,40 @@ class Board {
     /** (Re)initialize me to a cleared board with N es on a side. Clears
      *  the undo history and sets the number of moves to 0. */
     void clear(int N) {
-        _board = new Square[N * N];
-        _size = N;
-        for (int i = 0; i < _board.length; i++) {
-            _board[i] = Square.INITIAL;
+        if (_cells.length != N * N) {
+            _cells = new byte[N * N];
         }
-        _history.clear();
-        _current = 0;
+        _size = N;
+        _neighborTable = NEIGHBOR_TABLES[N];
+        _numNeighbors = NEIGHBOR_COUNTS[N];
+        _symmetryTable = SYMMETRY_TABLES[N];
+        Arrays.fill(_cells, WHITE_CELL);
+        recount();
+        clearUndo();
         announce();
     }
 
     /** Copy the contents of BOARD into me. */
     void copy(Board board) {
-        _board = new Square[board.size() * board.size()];
-        for (int i = 0; i < _board.length; i++) {
-            _board[i] = board.get(i);
-        }
-        _history.clear();
-        _current = 0;
+        copy(board, IDENTITY);
     }
 
-    /** Copy the contents of BOARD into me, without modifying my undo
-     *  history. Assumes BOARD and I have the same size. */
-    private void internalCopy(Board board) {
-        assert size() == board.size();
-        for (int i = 0; i < _board.length; i++) {
-            _board[i] = board.get(i);
+    /** Copy the image of the contents of BOARD under symmetry SYM into
+     *  me.  BOARD must not be me. */
+    void copy(Board board, int sym) {
+        int N = board.size();
+        if (_cells.length != N * N) {
+            _cells = new byte[N * N];
+        }
+        _size = N;
+        _neighborTable = NEIGHBOR_TABLES[N];
+        _numNeighbors = NEIGHBOR_COUNTS[N];
+        _symmetryTable = SYMMETRY_TABLES[N];
+        for (int i = 0; i < _cells.length; i++) {
+            _cells[symmetricSquare(sym, i)] = board.cell(i);
         }
+        recount();
+        clearUndo();
     }
 
     /** Return the number of rows and of columns of THIS. */
@@ -101,16 +140,127 @@ class Board {
         if (!exists(n)) {
             throw new GameException("Index out of bounds.");
         }
-        return _board[n];
+        return Square.square(color(n), spots(n));
+    }
+
+    /** Returns the number of spots on square #N, which must exist. */
+    int spots(int n) {
+        return cell(n) & SPOT_MASK;
+    }
+
+    /** Returns the Side controlling square #N, which must exist. */
+    Side color(int n) {
+        return SIDES[cell(n) >>> SPOT_BITS];
+    }
+
+    /** Returns the packed contents of square #N, which must exist. */
+    byte cell(int n) {
+        return _cells[n];
     }
 
     /** Returns the total number of spots on the board. */
     int numPieces() {
-        int sum = 0;
-        for (int i = 0; i < _board.length; i++) {
-            sum = sum + this.get(i).getSpots();
+        return _numPieces;
+    }
+
+    /** Returns a 64-bit hash key of my size and contents.  Equal boards
+     *  have equal keys, and unequal boards have equal keys with
+     *  probability of about 2**-64. */
+    long key() {
+        return _keys[IDENTITY];
+    }
+
+    /** Returns the key that my image under symmetry SYM would have,
+     *  0 <= SYM < SYMMETRIES. */
+    long symmetricKey(int sym) {
+        updateSymmetricKeys();
+        return _keys[sym];
+    }
+
+    /** Returns the number of the symmetry carrying me to my canonical
+     *  form: the image of me with the least key (taking the
+     *  lowest-numbered symmetry among those giving that image). */
+    int canonicalSymmetry() {
+        updateSymmetricKeys();
+        int best = IDENTITY;
+        for (int sym = 1; sym < SYMMETRIES; sym += 1) {
+            if (_keys[sym] < _keys[best]) {
+                best = sym;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the key of my canonical form.  Boards that are images of
+     *  one another under symmetries have the same canonical key. */
+    long canonicalKey() {
+        return _keys[canonicalSymmetry()];
+    }
+
+    /** Returns the number of the square to which symmetry SYM carries
+     *  square #N. */
+    int symmetricSquare(int sym, int n) {
+        return _symmetryTable[sym * _cells.length + n];
+    }
+
+    /** Returns the set of symmetries under which I am my own image, as a
+     *  bit mask in which bit SYM is set iff symmetry SYM leaves me
+     *  unchanged.  Bit 0 (the identity) is always set. */
+    int symmetries() {
+        int result = 1 << IDENTITY;
+        updateSymmetricKeys();
+        for (int sym = 1; sym < SYMMETRIES; sym += 1) {
+            if (_keys[sym] == _keys[IDENTITY] && isSymmetric(sym)) {
+                result |= 1 << sym;
+            }
+        }
+        return result;
+    }
+
+    /** Returns true iff symmetry SYM leaves me unchanged. */
+    private boolean isSymmetric(int sym) {
+        for (int i = 0; i < _cells.length; i += 1) {
+            if (_cells[i] != _cells[symmetricSquare(sym, i)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the number of the symmetry that undoes symmetry SYM. */
+    static int inverseSymmetry(int sym) {
+        return INVERSE_SYMMETRIES[sym];
+    }
+
+    /** Recompute the total number of spots, the number of squares
+     *  of each Side, and my key from scratch. */
+    private void recount() {
+        Arrays.fill(_sideCounts, 0);
+        _numPieces = 0;
+        _keys[IDENTITY] = SIZE_KEYS[_size];
+        for (int i = 0; i < _cells.length; i++) {
+            _numPieces += _cells[i] & SPOT_MASK;
+            _sideCounts[_cells[i] >>> SPOT_BITS] += 1;
+            _keys[IDENTITY] ^= ZOBRIST[i][_cells[i]];
+        }
+        _symmetricKeysValid = false;
+    }
+
+    /** Compute the keys of my images under all symmetries other than the
+     *  identity, if they have changed since they were last computed. */
+    private void updateSymmetricKeys() {
+        if (_symmetricKeysValid) {
+            return;
+        }
+        for (int sym = 1; sym < SYMMETRIES; sym += 1) {
+            long key = SIZE_KEYS[_size];
+            for (int i = 0, k = sym * _cells.length; i < _cells.length;
+                 i += 1, k += 1) {
+                key ^= ZOBRIST[_symmetryTable[k]][_cells[i]];
+            }
+            _keys[sym] = key;
         }
-        return sum;
+        _symmetricKeysValid = true;
     }
 
     /** Returns the Side of the player who would be next to move.  If the
@@ -164,8 +314,8 @@ class Board {
     /** Returns true iff it would currently be legal for PLAYER to add a spot
      *  to square #N. */
     boolean isLegal(Side player, int n) {
-        if (isLegal(player)) {
-            if (_board[n].getSide().opposite() != player && exists(n)) {
+        if (exists(n) && isLegal(player)) {
+            if (color(n).opposite() != player) {
                 return true;
             }
         }
@@ -183,9 +333,10 @@ class Board {
     /** Returns the winner of the current position, if the game is over,
      *  and otherwise null. */
     final Side getWinner() {
-        if (numOfSide(RED) == _board.length) {
+        int N = size();
+        if (numOfSide(RED) == N * N) {
             return RED;
-        } else if (numOfSide(BLUE) == _board.length) {
+        } else if (numOfSide(BLUE) == N * N) {
             return BLUE;
         } else {
             return null;
@@ -194,27 +345,16 @@ class Board {
 
     /** Return the number of squares of given SIDE. */
     int numOfSide(Side side) {
-        int sum = 0;
-        for (int i = 0; i < _board.length; i++) {
-            if (_board[i].getSide().equals(side)) {
-                sum++;
-            }
-        }
-        return sum;
+        return _sideCounts[side.ordinal()];
     }
 
     /** Add a spot from PLAYER at row R, column C.  Assumes
      *  isLegal(PLAYER, R, C). */
     void addSpot(Side player, int r, int c) {
-        if (!isLegal(player, r, c)) {
+        if (!exists(r, c)) {
             throw new GameException("Illegal to add a spot.");
         }
-        markUndo();
-        simpleAdd(player, r, c, 1);
-        if (get(r, c).getSpots() > neighbors(r, c)) {
-            jump(sqNum(r, c));
-        }
-        announce();
+        addSpot(player, sqNum(r, c));
     }
 
     /** Add a spot from PLAYER at square #N.  Assumes isLegal(PLAYER, N). */
@@ -222,18 +362,29 @@ class Board {
         if (!isLegal(player, n)) {
             throw new GameException("Illegal to add a spot.");
         }
-        markUndo();
+        _numMoves = _current;
+        makeMove(player, n);
+        announce();
+    }
+
+    /** Add a spot from PLAYER at square #N and do all resulting jumping,
+     *  recording the move in the undo history.  Does not announce
+     *  changes. */
+    private void makeMove(Side player, int n) {
+        markUndo(player, n);
+        _lastCascade = 0;
         simpleAdd(player, n, 1);
-        if (get(n).getSpots() > neighbors(n)) {
+        if (spots(n) > _numNeighbors[n]) {
             jump(n);
         }
-        announce();
     }
 
     /** Set the square at row R, column C to NUM spots (0 <= NUM), and give
-     *  it color PLAYER if NUM > 0 (otherwise, white). */
+     *  it color PLAYER if NUM > 0 (otherwise, white).  Clears the undo
+     *  history, since the moves in it did not lead to the result. */
     void set(int r, int c, int num, Side player) {
         internalSet(r, c, num, player);
+        clearUndo();
         announce();
     }
 
@@ -247,98 +398,190 @@ class Board {
     /** Set the square #N to NUM spots (0 <= NUM), and give it color PLAYER
      *  if NUM > 0 (otherwise, white). Does not announce changes. */
     private void internalSet(int n, int num, Side player) {
-        if (num > 0) {
-            _board[n] = Square.square(player, num);
+        if (num > 0 && player != WHITE) {
+            internalSet(n, pack(player, num));
         } else {
-            _board[n] =  Square.square(WHITE, num);
+            internalSet(n, WHITE_CELL);
         }
     }
 
+    /** Set the packed contents of square #N to CELL, updating the counts
+     *  of spots and of squares of each color and my key.  Does not
+     *  announce changes. */
+    private void internalSet(int n, byte cell) {
+        byte old = _cells[n];
+        _cells[n] = cell;
+        _numPieces += (cell & SPOT_MASK) - (old & SPOT_MASK);
+        _sideCounts[old >>> SPOT_BITS] -= 1;
+        _sideCounts[cell >>> SPOT_BITS] += 1;
+        _keys[IDENTITY] ^= ZOBRIST[n][old] ^ ZOBRIST[n][cell];
+        _symmetricKeysValid = false;
+    }
+
     /** Undo the effects of one move (that is, one addSpot command).  One
      *  can only undo back to the last point at which the undo history
-     *  was cleared, or the construction of this Board. */
+     *  was cleared, or the construction of this Board, and at most
+     *  undoLimit() moves. */
     void undo() {
         if (_current > 0) {
             _current -= 1;
-            this.internalCopy(_history.get(_current));
+            int start = _frames[_firstFrame + _current];
+            for (int k = _journalSize - 1; k >= start; k -= 1) {
+                int entry = _journal[k];
+                internalSet(entry >>> JOURNAL_SHIFT, (byte) entry);
+            }
+            _journalSize = start;
         }
     }
 
-    /** Record the beginning of a move in the undo history. */
-    private void markUndo() {
-        Board copyOfBoard = new Board(size());
-        copyOfBoard.copy(this);
-        _history.add(copyOfBoard);
-        _current++;
+    /** Redo the most recently undone move, if there is one that has not
+     *  been discarded. */
+    void redo() {
+        if (_current < _numMoves) {
+            int move = _moves[_firstFrame + _current];
+            makeMove(SIDES[move & MOVE_SIDE_MASK], move >>> MOVE_SHIFT);
+            announce();
+        }
     }
 
-    /** Add DELTASPOTS spots of side PLAYER to row R, column C,
-     *  updating counts of numbers of squares of each color. */
-    private void simpleAdd(Side player, int r, int c, int deltaSpots) {
-        internalSet(r, c, deltaSpots + get(r, c).getSpots(), player);
+    /** Return the square number of the move that undo would undo, or
+     *  -1 if there is none. */
+    int lastMove() {
+        if (_current == 0) {
+            return -1;
+        }
+        return _moves[_firstFrame + _current - 1] >>> MOVE_SHIFT;
     }
 
-    /** Add DELTASPOTS spots of color PLAYER to square #N,
-     *  updating counts of numbers of squares of each color. */
-    private void simpleAdd(Side player, int n, int deltaSpots) {
-        internalSet(n, deltaSpots + get(n).getSpots(), player);
+    /** Return the number of squares that exploded as a result of the
+     *  most recent move made by addSpot or redo (0 if none have). */
+    int lastCascade() {
+        return _lastCascade;
     }
 
-    /** Used in jump to keep track of squares needing processing.  Allocated
-     *  here to cut down on allocations. */
-    private final ArrayDeque<Integer> _workQueue = new ArrayDeque<>();
+    /** Return true iff there is a move that undo would undo. */
+    boolean canUndo() {
+        return _current > 0;
+    }
 
-    /** Do all jumping on this board, assuming that initially, S is the only
-     *  square that might be over-full. */
-    private void jump(int S) {
-        _workQueue.clear();
-        set(row(S), col(S), 1, get(S).getSide());
-        for (int i = 0; i < neighborList(S).size(); i++) {
-            setColor(neighborList(S).get(i), get(S).getSide());
-            simpleAdd(get(S).getSide(), neighborList(S).get(i), 1);
-            _workQueue.add(neighborList(S).get(i));
-        }
-        while (getWinner() == null && !_workQueue.isEmpty()) {
-            int check = _workQueue.pop();
-            if (get(check).getSpots() > neighbors(check)) {
-                set(row(check), col(check), 1, get(check).getSide());
-                for (int i = 0; i < neighborList(check).size(); i++) {
-                    setColor(check, get(check).getSide());
-                    simpleAdd(get(check).getSide(),
-                            neighborList(check).get(i), 1);
-                    _workQueue.add(neighborList(check).get(i));
-                }
-            }
-        }
+    /** Return true iff there is a move that redo would redo. */
+    boolean canRedo() {
+        return _current < _numMoves;
     }
 
-    /** Set color of a square in the board.
-     * N is square position
-     * COLOR is player side
-     */
-    private void setColor(int n, Side color) {
-        _board[n] = Square.square(color, get(n).getSpots());
+    /** Return the maximum number of moves kept in my undo history. */
+    int undoLimit() {
+        return _undoLimit;
     }
 
-    /** Add neighbors to a list.
-     * N is the position
-     * @return NEIGHBORS
-     * */
-    private ArrayList<Integer> neighborList(int n) {
-        ArrayList<Integer> neighbors = new ArrayList<>();
-        if (row(n) != 1) {
-            neighbors.add(n - size());
+    /** Keep at most LIMIT > 0 moves in my undo history, discarding the
+     *  oldest ones (and any that could be redone) as needed. */
+    void setUndoLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("undo limit must be positive");
         }
-        if (row(n) != size()) {
-            neighbors.add(n + size());
+        _undoLimit = limit;
+        _numMoves = _current;
+        if (_current > limit) {
+            _firstFrame += _current - limit;
+            _current = _numMoves = limit;
         }
-        if (col(n) != 1) {
-            neighbors.add(n - 1);
+    }
+
+    /** Record the beginning of a move by PLAYER at square #N in the undo
+     *  history, discarding the oldest move if the history is full. */
+    private void markUndo(Side player, int n) {
+        if (_current == _undoLimit) {
+            _firstFrame += 1;
+            _current -= 1;
+            _numMoves -= 1;
+        }
+        if (_firstFrame + _current == _frames.length) {
+            if (_firstFrame > 0
+                && _frames.length >= 2 * (long) _undoLimit) {
+                compactUndo();
+            } else {
+                _frames = Arrays.copyOf(_frames, 2 * _frames.length);
+                _moves = Arrays.copyOf(_moves, 2 * _moves.length);
+            }
         }
-        if (col(n) != size()) {
-            neighbors.add(n + 1);
+        int k = _firstFrame + _current;
+        _frames[k] = _journalSize;
+        _moves[k] = (n << MOVE_SHIFT) | player.ordinal();
+        _current += 1;
+        _numMoves = Math.max(_numMoves, _current);
+    }
+
+    /** Record the current contents of square #N in the undo journal, so
+     *  that undo can restore it. */
+    private void journal(int n) {
+        if (_journalSize == _journal.length) {
+            if (_current > 0 && _frames[_firstFrame] >= _journal.length / 2) {
+                compactUndo();
+            } else {
+                _journal = Arrays.copyOf(_journal, 2 * _journal.length);
+            }
+        }
+        _journal[_journalSize] = (n << JOURNAL_SHIFT) | _cells[n];
+        _journalSize += 1;
+    }
+
+    /** Reclaim the space in _frames, _moves, and _journal used by moves
+     *  that were discarded from the front of the undo history. */
+    private void compactUndo() {
+        int dead = _current == 0 ? _journalSize : _frames[_firstFrame];
+        System.arraycopy(_journal, dead, _journal, 0, _journalSize - dead);
+        _journalSize -= dead;
+        for (int k = 0; k < _numMoves; k += 1) {
+            _frames[k] = _frames[_firstFrame + k] - dead;
+            _moves[k] = _moves[_firstFrame + k];
+        }
+        _firstFrame = 0;
+    }
+
+    /** Discard the undo history. */
+    private void clearUndo() {
+        _firstFrame = _current = _numMoves = 0;
+        _journalSize = 0;
+    }
+
+    /** Add DELTASPOTS spots of color PLAYER to square #N,
+     *  updating counts of numbers of squares of each color and recording
+     *  the previous contents in the undo journal. */
+    private void simpleAdd(Side player, int n, int deltaSpots) {
+        journal(n);
+        internalSet(n, deltaSpots + spots(n), player);
+    }
+
+    /** Used in jump as a ring buffer of squares needing processing.
+     *  Allocated here to cut down on allocations. */
+    private final int[] _workQueue = new int[QUEUE_SIZE];
+
+    /** Do all jumping on this board, assuming that initially, S is the only
+     *  square that might be over-full.  A square is queued only when it
+     *  first becomes over-full, so that at most size() * size() squares
+     *  are ever waiting in _workQueue.  Does not announce changes. */
+    private void jump(int S) {
+        Side player = color(S);
+        int head, tail;
+        head = 0;
+        _workQueue[0] = S;
+        tail = 1;
+        while (head != tail && getWinner() == null) {
+            int n = _workQueue[head];
+            head = (head + 1) & QUEUE_MASK;
+            int count = _numNeighbors[n];
+            _lastCascade += 1;
+            simpleAdd(player, n, -count);
+            for (int k = n * MAX_NEIGHBORS, end = k + count; k < end; k++) {
+                int nb = _neighborTable[k];
+                simpleAdd(player, nb, 1);
+                if (spots(nb) == _numNeighbors[nb] + 1) {
+                    _workQueue[tail] = nb;
+                    tail = (tail + 1) & QUEUE_MASK;
+                }
+            }
         }
-        return neighbors;
     }
 
     /** Returns my dumped representation. */
@@ -409,7 +652,13 @@ class Board {
 
     /** Returns the number of neighbors of square #N. */
     int neighbors(int n) {
-        return neighbors(row(n), col(n));
+        return NEIGHBOR_COUNTS[size()][n];
+    }
+
+    /** Returns the number of neighbor #K of square #N, where
+     *  0 <= K < neighbors(N). */
+    int neighbor(int n, int k) {
+        return NEIGHBOR_TABLES[size()][MAX_NEIGHBORS * n + k];
     }
 
     @Override
@@ -421,19 +670,16 @@ class Board {
             if (B.size() != this.size()) {
                 return false;
             }
-            for (int i = 0; i < _board.length; i++) {
-                if (B.get(i).getSide() != this.get(i).getSide()
-                        || B.get(i).getSpots() != this.get(i).getSpots()) {
-                    return false;
-                }
+            if (B instanceof ConstantBoard) {
+                return B.equals(this);
             }
-            return true;
+            return key() == B.key() && Arrays.equals(_cells, B._cells);
         }
     }
 
     @Override
     public int hashCode() {
-        return numPieces();
+        return Long.hashCode(key());
     }
 
     /** Set my notifier to NOTIFY. */
@@ -456,15 +702,233 @@ class Board {
     /** Use _notifier.accept(B) to announce changes to this board. */
     private Consumer<Board> _notifier;
 
-    /** A 1-D array representing the board. */
-    private Square[] _board;
+    /** Number of low-order bits of a packed square holding its spots. */
+    private static final int SPOT_BITS = 4;
+
+    /** Mask extracting the spot count from a packed square. */
+    private static final int SPOT_MASK = (1 << SPOT_BITS) - 1;
+
+    /** The packed representation of a white (initial) square. */
+    private static final byte WHITE_CELL = 1;
+
+    /** All Sides, indexed by ordinal. */
+    private static final Side[] SIDES = Side.values();
+
+    /** Number of bits in an undo journal entry holding packed square
+     *  contents. */
+    private static final int JOURNAL_SHIFT = 8;
+
+    /** Number of bits in a recorded move holding the mover's Side. */
+    private static final int MOVE_SHIFT = 2;
+
+    /** Mask extracting the mover's Side from a recorded move. */
+    private static final int MOVE_SIDE_MASK = (1 << MOVE_SHIFT) - 1;
+
+    /** Initial capacity of the undo frames and journal. */
+    private static final int INITIAL_UNDO_CAPACITY = 64;
+
+    /** Upper bound on the packed contents of a square. */
+    private static final int MAX_CELL = SIDES.length << SPOT_BITS;
+
+    /** Seed for the random numbers in ZOBRIST and SIZE_KEYS.  Fixed, so
+     *  that keys are the same from one run to the next. */
+    private static final long ZOBRIST_SEED = 0x6a756d703631L;
+
+    /** ZOBRIST[N][C] is the key contribution of square #N holding packed
+     *  contents C. */
+    private static final long[][] ZOBRIST =
+        new long[Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE][MAX_CELL];
+
+    /** SIZE_KEYS[N] is the key contribution of the size of an N x N
+     *  board. */
+    private static final long[] SIZE_KEYS =
+        new long[Defaults.MAX_BOARD_SIZE + 1];
+
+    static {
+        Random random = new Random(ZOBRIST_SEED);
+        for (long[] keys : ZOBRIST) {
+            for (int c = 0; c < keys.length; c += 1) {
+                keys[c] = random.nextLong();
+            }
+        }
+        for (int N = 0; N < SIZE_KEYS.length; N += 1) {
+            SIZE_KEYS[N] = random.nextLong();
+        }
+    }
+
+    /** Maximum number of neighbors of any square. */
+    private static final int MAX_NEIGHBORS = 4;
+
+    /** Capacity of _workQueue: a power of two no smaller than the number
+     *  of squares on the largest board. */
+    private static final int QUEUE_SIZE =
+        Integer.highestOneBit(Defaults.MAX_BOARD_SIZE
+                              * Defaults.MAX_BOARD_SIZE - 1) << 1;
+
+    /** Mask used to wrap indices into _workQueue. */
+    private static final int QUEUE_MASK = QUEUE_SIZE - 1;
+
+    /** NEIGHBOR_TABLES[N] lists the neighbors of the squares of an N x N
+     *  board: those of square #K occupy entries MAX_NEIGHBORS * K through
+     *  MAX_NEIGHBORS * K + NEIGHBOR_COUNTS[N][K] - 1 (above, below, left,
+     *  and right, in that order). */
+    private static final int[][] NEIGHBOR_TABLES =
+        new int[Defaults.MAX_BOARD_SIZE + 1][];
+
+    /** NEIGHBOR_COUNTS[N][K] is the number of neighbors of square #K on
+     *  an N x N board. */
+    private static final byte[][] NEIGHBOR_COUNTS =
+        new byte[Defaults.MAX_BOARD_SIZE + 1][];
+
+    static {
+        for (int N = 1; N <= Defaults.MAX_BOARD_SIZE; N += 1) {
+            int[] table = new int[N * N * MAX_NEIGHBORS];
+            byte[] counts = new byte[N * N];
+            for (int n = 0; n < N * N; n += 1) {
+                int r = n / N, c = n % N, k = n * MAX_NEIGHBORS;
+                if (r > 0) {
+                    table[k++] = n - N;
+                }
+                if (r < N - 1) {
+                    table[k++] = n + N;
+                }
+                if (c > 0) {
+                    table[k++] = n - 1;
+                }
+                if (c < N - 1) {
+                    table[k++] = n + 1;
+                }
+                counts[n] = (byte) (k - n * MAX_NEIGHBORS);
+            }
+            NEIGHBOR_TABLES[N] = table;
+            NEIGHBOR_COUNTS[N] = counts;
+        }
+    }
+
+    /** Number of symmetries of a square board. */
+    static final int SYMMETRIES = 8;
+
+    /** The number of the identity symmetry. */
+    static final int IDENTITY = 0;
+
+    /** Bit of a symmetry number that reverses the order of columns. */
+    private static final int FLIP_COLUMNS = 1;
+
+    /** Bit of a symmetry number that reverses the order of rows. */
+    private static final int FLIP_ROWS = 2;
+
+    /** Bit of a symmetry number that exchanges rows with columns (after
+     *  any flips). */
+    private static final int TRANSPOSE = 4;
+
+    /** SYMMETRY_TABLES[N][SYM * N * N + K] is the number of the square to
+     *  which symmetry SYM carries square #K of an N x N board. */
+    private static final int[][] SYMMETRY_TABLES =
+        new int[Defaults.MAX_BOARD_SIZE + 1][];
+
+    /** INVERSE_SYMMETRIES[SYM] is the symmetry that undoes symmetry
+     *  SYM. */
+    private static final int[] INVERSE_SYMMETRIES = new int[SYMMETRIES];
+
+    static {
+        for (int N = 1; N <= Defaults.MAX_BOARD_SIZE; N += 1) {
+            int[] table = new int[SYMMETRIES * N * N];
+            for (int sym = 0; sym < SYMMETRIES; sym += 1) {
+                for (int n = 0; n < N * N; n += 1) {
+                    int r = n / N, c = n % N;
+                    if ((sym & FLIP_COLUMNS) != 0) {
+                        c = N - 1 - c;
+                    }
+                    if ((sym & FLIP_ROWS) != 0) {
+                        r = N - 1 - r;
+                    }
+                    if ((sym & TRANSPOSE) != 0) {
+                        int t = r;
+                        r = c;
+                        c = t;
+                    }
+                    table[sym * N * N + n] = r * N + c;
+                }
+            }
+            SYMMETRY_TABLES[N] = table;
+        }
+        for (int sym = 0; sym < SYMMETRIES; sym += 1) {
+            if ((sym & TRANSPOSE) == 0) {
+                INVERSE_SYMMETRIES[sym] = sym;
+            } else {
+                INVERSE_SYMMETRIES[sym] = TRANSPOSE
+                    | (sym & FLIP_COLUMNS) << 1 | (sym & FLIP_ROWS) >> 1;
+            }
+        }
+    }
+
+    /** Return the packed representation of a square of color PLAYER with
+     *  NUM spots. */
+    private static byte pack(Side player, int num) {
+        return (byte) ((player.ordinal() << SPOT_BITS) | num);
+    }
+
+    /** The packed contents of each square, in row-major order. */
+    private byte[] _cells;
+
+    /** The entry of NEIGHBOR_TABLES for my size. */
+    private int[] _neighborTable;
+
+    /** The entry of NEIGHBOR_COUNTS for my size. */
+    private byte[] _numNeighbors;
+
+    /** The entry of SYMMETRY_TABLES for my size. */
+    private int[] _symmetryTable;
+
+    /** Total number of spots on the board. */
+    private int _numPieces;
+
+    /** _keys[SYM] is the Zobrist key of my size and contents as
+     *  transformed by symmetry SYM (for SYM other than IDENTITY, only
+     *  when _symmetricKeysValid). */
+    private final long[] _keys = new long[SYMMETRIES];
+
+    /** True iff the elements of _keys other than _keys[IDENTITY] are up
+     *  to date. */
+    private boolean _symmetricKeysValid;
+
+    /** Number of squares controlled by each Side, indexed by ordinal. */
+    private final int[] _sideCounts = new int[SIDES.length];
 
     /** Size of the board(number of row/col). */
     private int _size;
 
-    /** Current position in _history. */
+    /** Number of moves currently recorded in the undo history. */
     private int _current;
 
-    /** A list storing previous board states. */
-    private ArrayList<Board> _history = new ArrayList<>();
+    /** Number of moves recorded in the undo history, including those
+     *  that have been undone and may be redone. */
+    private int _numMoves;
+
+    /** Index in _frames and _moves of the oldest move in the undo
+     *  history. */
+    private int _firstFrame;
+
+    /** Maximum number of moves in the undo history. */
+    private int _undoLimit = Defaults.UNDO_LIMIT;
+
+    /** _frames[_firstFrame + K] is the index in _journal of the first entry
+     *  recorded by move #K of the undo history, for 0 <= K < _current. */
+    private int[] _frames = new int[INITIAL_UNDO_CAPACITY];
+
+    /** _moves[_firstFrame + K] is move #K of the undo history, for
+     *  0 <= K < _numMoves: the square number shifted left by MOVE_SHIFT
+     *  bits together with the ordinal of the Side that made it. */
+    private int[] _moves = new int[INITIAL_UNDO_CAPACITY];
+
+    /** The undo journal.  Each entry holds a square number shifted left
+     *  by JOURNAL_SHIFT bits, together with the packed contents that
+     *  square had before it was changed. */
+    private int[] _journal = new int[INITIAL_UNDO_CAPACITY];
+
+    /** Number of entries in use in _journal. */
+    private int _journalSize;
+
+    /** Number of squares exploded by the most recent move. */
+    private int _lastCascade;
 }
@@ -1,5 +1,8 @@
 package jump61;
 
+import java.util.ArrayList;
+import java.util.Random;
+
 import static jump61.Side.*;
 
 import org.junit.Test;
@@ -54,6 +57,216 @@ public class BoardTest {
         checkBoard("#0U", B);
     }
 
+    @Test
+    public void testCopyAndEquals() {
+        Board B = new Board(4);
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 4, 4);
+        B.set(2, 3, 3, BLUE);
+        Board C = new Board(B);
+        assertEquals("copies differ", B, C);
+        assertEquals("copies differ", B, new ConstantBoard(B));
+        assertEquals("copies differ", C.readonlyBoard(), B);
+        assertEquals("wrong spots", 3, C.spots(C.sqNum(2, 3)));
+        assertEquals("wrong color", BLUE, C.color(C.sqNum(2, 3)));
+        assertEquals("wrong color", WHITE, C.color(C.sqNum(3, 3)));
+        C.addSpot(RED, 1, 1);
+        assertFalse("boards should differ", B.equals(C));
+    }
+
+    @Test
+    public void testCounts() {
+        Board B = new Board(3);
+        assertEquals("wrong piece count", 9, B.numPieces());
+        assertEquals("wrong count", 9, B.numOfSide(WHITE));
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 3, 3);
+        B.addSpot(RED, 1, 1);
+        assertEquals("wrong piece count", 12, B.numPieces());
+        assertEquals("wrong count", 3, B.numOfSide(RED));
+        assertEquals("wrong count", 1, B.numOfSide(BLUE));
+        assertEquals("wrong count", 5, B.numOfSide(WHITE));
+        assertEquals("wrong player", BLUE, B.whoseMove());
+        B.undo();
+        assertEquals("wrong piece count", 11, B.numPieces());
+        assertEquals("wrong count", 1, B.numOfSide(RED));
+        assertEquals("wrong player", RED, B.whoseMove());
+        B.set(2, 2, 0, RED);
+        B.set(1, 2, 2, BLUE);
+        assertEquals("wrong piece count", 12, B.numPieces());
+        assertEquals("wrong count", 2, B.numOfSide(BLUE));
+    }
+
+    @Test
+    public void testCascade() {
+        Board B = new Board(4);
+        int[] notices = new int[1];
+        B.setNotifier((b) -> notices[0] += 1);
+        Random rand = new Random(61);
+        while (B.getWinner() == null) {
+            Side player = B.whoseMove();
+            int n = rand.nextInt(16);
+            if (B.isLegal(player, n)) {
+                int pieces = B.numPieces();
+                notices[0] = 0;
+                B.addSpot(player, n);
+                assertEquals("spots not conserved", pieces + 1,
+                             B.numPieces());
+                assertEquals("wrong number of notices", 1, notices[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testUndoRandomGame() {
+        Board B = new Board(5);
+        ArrayList<Board> positions = new ArrayList<>();
+        Random rand = new Random(1061);
+        while (B.getWinner() == null) {
+            Side player = B.whoseMove();
+            int n = rand.nextInt(25);
+            if (B.isLegal(player, n)) {
+                positions.add(new Board(B));
+                B.addSpot(player, n);
+            }
+        }
+        for (int k = positions.size() - 1; k >= 0; k -= 1) {
+            B.undo();
+            assertEquals("bad undo of move " + k, positions.get(k), B);
+            assertEquals("bad count after undo of move " + k,
+                         positions.get(k).numOfSide(RED), B.numOfSide(RED));
+        }
+    }
+
+    @Test
+    public void testRedo() {
+        Board B = new Board(6);
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 2, 1);
+        B.addSpot(RED, 1, 1);
+        Board after = new Board(B);
+        B.undo();
+        B.undo();
+        assertTrue("should be able to redo", B.canRedo());
+        B.redo();
+        B.redo();
+        assertEquals("bad redo", after, B);
+        assertFalse("nothing to redo", B.canRedo());
+        B.undo();
+        B.addSpot(RED, 6, 6);
+        assertFalse("redo not discarded", B.canRedo());
+        B.redo();
+        checkBoard("#R", B, 1, 1, 2, RED, 2, 1, 2, BLUE, 6, 6, 2, RED);
+    }
+
+    @Test
+    public void testSetClearsUndo() {
+        Board B = new Board(6);
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 2, 1);
+        B.undo();
+        B.set(3, 3, 2, BLUE);
+        Board after = new Board(B);
+        assertFalse("move before set can be undone", B.canUndo());
+        assertFalse("move before set can be redone", B.canRedo());
+        B.undo();
+        B.redo();
+        assertEquals("set not kept", after, B);
+        checkBoard("#S", B, 1, 1, 2, RED, 3, 3, 2, BLUE);
+    }
+
+    @Test
+    public void testUndoLimit() {
+        Board B = new Board(6);
+        B.setUndoLimit(3);
+        Board[] positions = new Board[20];
+        Random rand = new Random(61061);
+        for (int k = 0; k < positions.length; k += 1) {
+            int n;
+            do {
+                n = rand.nextInt(36);
+            } while (!B.isLegal(B.whoseMove(), n));
+            positions[k] = new Board(B);
+            B.addSpot(B.whoseMove(), n);
+        }
+        for (int k = positions.length - 1; k >= positions.length - 3;
+             k -= 1) {
+            assertTrue("should be able to undo", B.canUndo());
+            B.undo();
+            assertEquals("bad undo of move " + k, positions[k], B);
+        }
+        assertFalse("undo history too long", B.canUndo());
+    }
+
+    @Test
+    public void testKey() {
+        Board B = new Board(4);
+        Board C = new Board(4);
+        assertEquals("initial keys differ", B.key(), C.key());
+        assertNotEquals("sizes not distinguished", B.key(),
+                        new Board(5).key());
+        B.addSpot(RED, 1, 1);
+        B.addSpot(BLUE, 4, 4);
+        C.addSpot(RED, 4, 4);
+        C.undo();
+        C.set(4, 4, 2, BLUE);
+        C.set(1, 1, 2, RED);
+        assertEquals("boards differ", B, C);
+        assertEquals("keys of equal boards differ", B.key(), C.key());
+        assertEquals("hash codes differ", B.hashCode(), C.hashCode());
+        long key = B.key();
+        B.addSpot(RED, 1, 1);
+        assertNotEquals("key unchanged by move", key, B.key());
+        B.undo();
+        assertEquals("key not restored by undo", key, B.key());
+    }
+
+    @Test
+    public void testSymmetry() {
+        Board B = new Board(5);
+        assertEquals("initial board not fully symmetric",
+                     (1 << Board.SYMMETRIES) - 1, B.symmetries());
+        B.addSpot(RED, 1, 3);
+        assertEquals("wrong symmetries", 1 << Board.IDENTITY | 1 << 1,
+                     B.symmetries());
+        Random rand = new Random(61);
+        Board C = new Board(5), D = new Board(5);
+        while (B.getWinner() == null) {
+            int n = rand.nextInt(25);
+            if (!B.isLegal(B.whoseMove(), n)) {
+                continue;
+            }
+            B.addSpot(B.whoseMove(), n);
+            for (int sym = 0; sym < Board.SYMMETRIES; sym += 1) {
+                C.copy(B, sym);
+                assertEquals("wrong symmetric key", C.key(),
+                             B.symmetricKey(sym));
+                assertEquals("canonical keys differ", B.canonicalKey(),
+                             C.canonicalKey());
+                assertEquals("wrong square image", B.cell(n),
+                             C.cell(B.symmetricSquare(sym, n)));
+                D.copy(C, Board.inverseSymmetry(sym));
+                assertEquals("inverse does not restore board", B, D);
+            }
+        }
+    }
+
+    @Test
+    public void testLastCascade() {
+        Board B = new Board(3);
+        B.addSpot(RED, 1, 1);
+        assertEquals("no cascade expected", 0, B.lastCascade());
+        B.addSpot(BLUE, 3, 3);
+        B.addSpot(RED, 1, 1);
+        assertEquals("wrong cascade length", 1, B.lastCascade());
+        B.set(1, 2, 3, RED);
+        B.set(2, 1, 3, RED);
+        B.set(1, 1, 2, RED);
+        B.set(3, 3, 2, BLUE);
+        B.addSpot(B.whoseMove(), 1, 1);
+        assertEquals("wrong cascade length", 4, B.lastCascade());
+    }
+
     /** Checks that B conforms to the description given by CONTENTS.
      *  CONTENTS should be a sequence of groups of 4 items:
      *  r, c, n, s, where r and c are row and column number of a square of B,
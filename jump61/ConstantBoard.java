@@ -28,6 +28,41 @@ class ConstantBoard extends Board {
         return _board.get(n);
     }
 
+    @Override
+    byte cell(int n) {
+        return _board.cell(n);
+    }
+
+    @Override
+    long key() {
+        return _board.key();
+    }
+
+    @Override
+    long symmetricKey(int sym) {
+        return _board.symmetricKey(sym);
+    }
+
+    @Override
+    int canonicalSymmetry() {
+        return _board.canonicalSymmetry();
+    }
+
+    @Override
+    long canonicalKey() {
+        return _board.canonicalKey();
+    }
+
+    @Override
+    int symmetricSquare(int sym, int n) {
+        return _board.symmetricSquare(sym, n);
+    }
+
+    @Override
+    int symmetries() {
+        return _board.symmetries();
+    }
+
     @Override
     int numPieces() {
         return _board.numPieces();
@@ -48,6 +83,31 @@ class ConstantBoard extends Board {
         return _board.isLegal(player);
     }
 
+    @Override
+    int lastMove() {
+        return _board.lastMove();
+    }
+
+    @Override
+    int lastCascade() {
+        return _board.lastCascade();
+    }
+
+    @Override
+    boolean canUndo() {
+        return _board.canUndo();
+    }
+
+    @Override
+    boolean canRedo() {
+        return _board.canRedo();
+    }
+
+    @Override
+    int undoLimit() {
+        return _board.undoLimit();
+    }
+
     @Override
     int numOfSide(Side color) {
         return _board.numOfSide(color);
@@ -77,6 +137,10 @@ class ConstantBoard extends Board {
     void copy(Board board) {
     }
 
+    @Override
+    void copy(Board board, int sym) {
+    }
+
     @Override
     void addSpot(Side player, int r, int c) {
     }
@@ -93,6 +157,14 @@ class ConstantBoard extends Board {
     void undo() {
     }
 
+    @Override
+    void redo() {
+    }
+
+    @Override
+    void setUndoLimit(int limit) {
+    }
+
     /** Board to which all operations are delegated. */
     private Board _board;
 
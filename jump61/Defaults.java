@@ -14,4 +14,78 @@ class Defaults {
     /** Maximum number of squares on the side of a game board. */
     static final int MAX_BOARD_SIZE = 10;
 
+    /** Default maximum number of moves retained in a Board's undo
+     *  history. */
+    static final int UNDO_LIMIT = 1024;
+
+    /** Default size in megabytes of an AI's transposition table. */
+    static final int HASH_SIZE = 16;
+
+    /** Maximum size in megabytes of an AI's transposition table. */
+    static final int MAX_HASH_SIZE = 4096;
+
+    /** Default time budget in milliseconds for an AI's move. */
+    static final int MOVE_TIME = 500;
+
+    /** Maximum depth of an AI's search. */
+    static final int MAX_SEARCH_DEPTH = 64;
+
+    /** Maximum number of positions visited by an AI's quiescence
+     *  search below any one leaf of its main search. */
+    static final int QUIESCENCE_NODES = 64;
+
+    /** Default number of threads used by an AI's search. */
+    static final int THREADS = 1;
+
+    /** Maximum number of threads used by an AI's search. */
+    static final int MAX_THREADS = 256;
+
+    /** Number of nodes in the search tree of a Monte Carlo player. */
+    static final int MCTS_NODES = 1 << 20;
+
+    /** Default number of iterations of a weight-tuning run. */
+    static final int TUNE_ITERATIONS = 500;
+
+    /** Default number of pairs of games played in each iteration of a
+     *  weight-tuning run. */
+    static final int TUNE_PAIRS = 32;
+
+    /** Default time budget in milliseconds for each move in the games of
+     *  a weight-tuning run. */
+    static final int TUNE_MOVE_TIME = 10;
+
+    /** Size in megabytes of the transposition tables of the AIs in
+     *  headless self-play and weight-tuning games. */
+    static final int SELFPLAY_HASH_SIZE = 1;
+
+    /** Default number of games in a self-play run. */
+    static final int SELFPLAY_GAMES = 1000;
+
+    /** Default search depth of the AIs in a self-play run for which no
+     *  time limit is given. */
+    static final int SELFPLAY_DEPTH = 2;
+
+    /** Default number of plies covered by a new opening book. */
+    static final int BOOK_PLIES = 2;
+
+    /** Default time budget in milliseconds for the search of each move
+     *  in a new opening book. */
+    static final int BOOK_MOVE_TIME = 1000;
+
+    /** Default greatest number of games in an SPRT run. */
+    static final int SPRT_GAMES = 20000;
+
+    /** Default Elo advantage of the candidate under the null hypothesis
+     *  of an SPRT run. */
+    static final double SPRT_ELO0 = 0.0;
+
+    /** Default Elo advantage of the candidate under the alternative
+     *  hypothesis of an SPRT run. */
+    static final double SPRT_ELO1 = 10.0;
+
+    /** Default probability of accepting a candidate that is no better
+     *  than its baseline, and of rejecting one that is better, in an
+     *  SPRT run. */
+    static final double SPRT_ERROR = 0.05;
+
 }
@@ -0,0 +1,16 @@
+package jump61;
+
+/** A static estimator of the values of positions, used by an AI at the
+ *  leaves of its search.
+ *  @author yuxinye
+ */
+interface Evaluator {
+
+    /** Return an estimate of the value of BOARD, on which the game is not
+     *  over: positive values favor Red and negative ones Blue.  The result
+     *  must have magnitude less than Searcher.WINNINGVALUE.  May be called
+     *  concurrently from several threads on different boards, and must
+     *  not modify BOARD. */
+    int evaluate(Board board);
+
+}
@@ -1,5 +1,11 @@
 package jump61;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
 import static jump61.Side.*;
 import static jump61.GameException.error;
 import static jump61.Utils.*;
@@ -12,13 +18,39 @@ class Game {
     /** Name of resource containing help message. */
     private static final String HELP = "jump61/Help.txt";
 
-    /** A list of all commands. */
-    private static final String[] COMMAND_NAMES = {
+    /** A Reporter that discards all messages. */
+    private static final Reporter SILENT = new Reporter() {
+        @Override
+        public void announceWin(Side side) {
+        }
+
+        @Override
+        public void announceMove(int row, int col) {
+        }
+
+        @Override
+        public void msg(String format, Object... args) {
+        }
+
+        @Override
+        public void err(String format, Object... args) {
+        }
+    };
+
+    /** A list of the basic commands, whose abbreviations take precedence
+     *  over those of the others. */
+    private static final String[] BASIC_COMMAND_NAMES = {
         "auto", "board", "clear", "dump", "help", "manual",
         "new", "q", "quiet", "quit",
         "seed", "set", "size", "start", "verbose",
     };
 
+    /** A list of all other commands. */
+    private static final String[] COMMAND_NAMES = {
+        "depth", "hash", "perft", "ponder", "redo", "stats", "threads",
+        "time", "undo", "weights",
+    };
+
     /** A new Game that takes command/move input from INP, logs
      *  commands if LOGGING, displays the board using VIEW, and uses REPORTER
      *  for messages to the user and error messages. SEED is intended to
@@ -36,12 +68,189 @@ class Game {
         _board.setNotifier((b) -> _view.update(b));
     }
 
+    /** Return a Game that reads no commands and produces no output, for
+     *  playing games between automated players with playGame. */
+    static Game headless() {
+        return new Game((prompt) -> null, (b) -> { }, SILENT, false);
+    }
+
     /** Returns a readonly view of the game board.  This board remains valid
      *  throughout the session. */
     Board getBoard() {
         return _readonlyBoard;
     }
 
+    /** Return the size in megabytes of the transposition tables of AIs
+     *  created from now on. */
+    int hashSize() {
+        return _hashSize;
+    }
+
+    /** Make the transposition tables of AIs occupy MEGABYTES megabytes,
+     *  where 1 <= MEGABYTES <= Defaults.MAX_HASH_SIZE.  Existing players
+     *  keep their other settings, but lose the contents of their
+     *  tables. */
+    void setHashSize(int megabytes) {
+        if (megabytes < 1 || megabytes > Defaults.MAX_HASH_SIZE) {
+            throw error("hash size must be between 1 and %d megabytes",
+                        Defaults.MAX_HASH_SIZE);
+        }
+        _hashSize = megabytes;
+        for (Player player : _players) {
+            if (player != null) {
+                player.setHashSize(megabytes);
+            }
+        }
+    }
+
+    /** Return the time budget in milliseconds for each AI move. */
+    int moveTime() {
+        return _moveTime;
+    }
+
+    /** Give AI players a time budget of MSEC > 0 milliseconds for each
+     *  move. */
+    void setMoveTime(int msec) {
+        if (msec <= 0) {
+            throw error("move time must be positive");
+        }
+        _moveTime = msec;
+    }
+
+    /** Return the greatest depth to which AI players search. */
+    int searchDepth() {
+        return _searchDepth;
+    }
+
+    /** Limit AI players to searching DEPTH plies deep, where
+     *  1 <= DEPTH <= Defaults.MAX_SEARCH_DEPTH. */
+    void setSearchDepth(int depth) {
+        if (depth < 1 || depth > Defaults.MAX_SEARCH_DEPTH) {
+            throw error("search depth must be between 1 and %d",
+                        Defaults.MAX_SEARCH_DEPTH);
+        }
+        _searchDepth = depth;
+    }
+
+    /** Return true iff AIs are to ponder: that is, to keep searching
+     *  while their opponents choose their moves. */
+    boolean ponder() {
+        return _ponder;
+    }
+
+    /** Make AIs ponder iff ON. */
+    void setPonder(boolean on) {
+        _ponder = on;
+        if (!on) {
+            stopThinking();
+        }
+    }
+
+    /** Return the number of threads each AI uses to search. */
+    int threads() {
+        return _threads;
+    }
+
+    /** Make each AI search using N threads, where
+     *  1 <= N <= Defaults.MAX_THREADS. */
+    void setThreads(int n) {
+        if (n < 1 || n > Defaults.MAX_THREADS) {
+            throw error("number of threads must be between 1 and %d",
+                        Defaults.MAX_THREADS);
+        }
+        if (n != _threads && _searchPool != null) {
+            _searchPool.shutdown();
+            _searchPool = null;
+        }
+        _threads = n;
+    }
+
+    /** Return a pool of threads() - 1 threads in which AIs may run
+     *  helper searches. */
+    ExecutorService searchPool() {
+        if (_searchPool == null) {
+            _searchPool = Executors.newFixedThreadPool(_threads - 1, (r) -> {
+                Thread thread = new Thread(r, "jump61-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return _searchPool;
+    }
+
+    /** Look for tablebases in directory DIR (see tablebase). */
+    void setTablebaseDir(String dir) {
+        _tablebaseDir = new File(dir);
+        _tablebases = new Tablebase[Tablebase.MAX_SIZE + 1];
+    }
+
+    /** Return the completely solved tablebase for N x N boards from the
+     *  tablebase directory, loading it the first time it is requested, or
+     *  null if there is none. */
+    Tablebase tablebase(int N) {
+        if (_tablebaseDir == null || N > Tablebase.MAX_SIZE) {
+            return null;
+        }
+        if (_tablebases[N] == null) {
+            File file = new File(_tablebaseDir, Tablebase.fileName(N));
+            if (!file.exists()) {
+                return null;
+            }
+            try {
+                _tablebases[N] = Tablebase.load(file);
+            } catch (IOException excp) {
+                reportError("could not read tablebase %s", file);
+                _tablebaseDir = null;
+                return null;
+            }
+        }
+        return _tablebases[N].complete() ? _tablebases[N] : null;
+    }
+
+    /** Return the opening book consulted by AIs, or null if none. */
+    OpeningBook book() {
+        return _book;
+    }
+
+    /** Make AIs consult the opening book BOOK (none if null). */
+    void setBook(OpeningBook book) {
+        _book = book;
+    }
+
+    /** Make AIs consult the opening book in the file named NAME. */
+    void setBook(String name) {
+        try {
+            setBook(OpeningBook.read(new File(name)));
+        } catch (IOException excp) {
+            throw error("could not read opening book from %s", name);
+        }
+    }
+
+    /** Return the Evaluator used by AIs playing COLOR. */
+    Evaluator evaluator(Side color) {
+        return _evaluators[color.ordinal()];
+    }
+
+    /** Make AIs playing COLOR evaluate positions with EVALUATOR. */
+    void setEvaluator(Side color, Evaluator evaluator) {
+        _evaluators[color.ordinal()] = evaluator;
+    }
+
+    /** Make AIs playing COLOR evaluate positions with the feature weights
+     *  in the file named NAME (see WeightedEvaluator), or with the default
+     *  weights if NAME is null. */
+    void setWeights(Side color, String name) {
+        if (name == null) {
+            setEvaluator(color, new WeightedEvaluator());
+            return;
+        }
+        try {
+            setEvaluator(color, WeightedEvaluator.read(new File(name)));
+        } catch (IOException excp) {
+            throw error("could not read weights from %s", name);
+        }
+    }
+
     /** Return true iff the current game is not over. */
     boolean gameInProgress() {
         return _board.getWinner() == null;
@@ -71,6 +280,7 @@ class Game {
                 }
             } else if (!gameInProgress()) {
                 if (!winnerAnnounced) {
+                    stopThinking();
                     _reporter.announceWin(_board.getWinner());
                     winnerAnnounced = true;
                 }
@@ -80,6 +290,34 @@ class Game {
         return _exit;
     }
 
+    /** Play the current game from the current position to its end
+     *  between the current players, which must both be automated, and
+     *  return the winner.  Unlike play, reads no commands and announces
+     *  nothing beyond what the players report. */
+    Side playGame() {
+        return playGame((n) -> { });
+    }
+
+    /** As for playGame(), but also pass the square number of each move
+     *  made to ONMOVE.  Throws a GameException if a player responds with
+     *  anything but a legal move. */
+    Side playGame(IntConsumer onMove) {
+        while (_board.getWinner() == null) {
+            Side color = _board.whoseMove();
+            int numPieces = _board.numPieces();
+            String move = getPlayer(color).getMove();
+            executeCommand(move);
+            if (_board.numPieces() != numPieces + 1) {
+                stopThinking();
+                throw error("%s player did not make a move: %s",
+                            color.toCapitalizedString(), move);
+            }
+            onMove.accept(_board.lastMove());
+        }
+        stopThinking();
+        return _board.getWinner();
+    }
+
     /** Return a suggested prompt for command input. */
     private String prompt() {
         if (gameInProgress()) {
@@ -147,7 +385,20 @@ class Game {
 
     /** Make the player of COLOR an AI for subsequent moves. */
     private void setAuto(Side color) {
-        setPlayer(color, new AI(this, color, _seed));
+        setPlayer(color, new AI(this, color));
+    }
+
+    /** Make the player of COLOR an automated player described by the
+     *  PlayerSpec SPEC for subsequent moves (e.g., "minmax" for an AI, or
+     *  "mcts" for an MCTSPlayer). */
+    void setAuto(Side color, String spec) {
+        setAuto(color, PlayerSpec.parse(spec));
+    }
+
+    /** Make the player of COLOR an automated player described by SPEC
+     *  for subsequent moves. */
+    void setAuto(Side color, PlayerSpec spec) {
+        setPlayer(color, spec.create(this, color, _seed));
         _seed += 1;
     }
 
@@ -158,20 +409,35 @@ class Game {
     }
 
     /** Return the Player playing COLOR. */
-    private Player getPlayer(Side color) {
+    Player getPlayer(Side color) {
         return _players[color.ordinal()];
     }
 
     /** Set getPlayer(COLOR) to PLAYER. */
-    private void setPlayer(Side color, Player player) {
+    void setPlayer(Side color, Player player) {
+        Player old = _players[color.ordinal()];
+        if (old != null) {
+            old.stopThinking();
+        }
         _players[color.ordinal()] = player;
     }
 
     /** Clear the board to its initial state. */
     void clear() {
+        stopThinking();
         _board.clear(_board.size());
     }
 
+    /** Stop any thinking that the players are doing in the
+     *  background. */
+    private void stopThinking() {
+        for (Player player : _players) {
+            if (player != null) {
+                player.stopThinking();
+            }
+        }
+    }
+
     /** Print the current board using standard board-dump format. */
     private void dump() {
         _reporter.msg(_board.toString());
@@ -182,13 +448,34 @@ class Game {
         _reporter.msg(_board.toDisplayString());
     }
 
+    /** Print the perft count of the current position to DEPTH, split
+     *  by first move if DIVIDE (see Perft). */
+    private void perft(int depth, boolean divide) {
+        if (depth < 0) {
+            throw error("perft depth must be non-negative");
+        }
+        _reporter.msg("%s", new Perft(_board).report(depth, divide));
+    }
+
+    /** Print the search statistics of the most recent move of each
+     *  player that searches. */
+    private void printStats() {
+        for (Side color : new Side[] { RED, BLUE }) {
+            Player player = getPlayer(color);
+            SearchStats stats = player == null ? null : player.stats();
+            if (stats != null) {
+                _reporter.msg("%s: %s", color.toCapitalizedString(), stats);
+            }
+        }
+    }
+
     /** Print a help message. */
     private void help() {
         printHelpResource(HELP, System.out);
     }
 
     /** Seed the random-number generator with SEED. */
-    private void setSeed(long seed) {
+    void setSeed(long seed) {
         _seed = seed;
     }
 
@@ -208,28 +495,47 @@ class Game {
 
     /** Stop any current game and set the board to an empty N x N board
      *  with numMoves() == 0.  Requires 2 <= N <= 10. */
-    private void setSize(int n) {
+    void setSize(int n) {
         log("size %d", n);
         if (n < 2 || n > 10) {
             throw error("size must be between 2 and 10");
         }
+        stopThinking();
         _board.clear(n);
     }
 
     /** Return the full, lower-case command name that uniquely fits
      *  COMMAND.  COMMAND may be any prefix of a valid command name,
-     *  as long as that name is unique.  If the name is not unique or
-     *  no command name matches, returns COMMAND in lower case. */
-    private String canonicalizeCommand(String command) {
+     *  as long as that name is unique, where prefixes of basic commands
+     *  take precedence over those of others (so that adding a command
+     *  does not invalidate abbreviations of the basic ones).  If the name
+     *  is not unique or no command name matches, returns COMMAND in lower
+     *  case. */
+    String canonicalizeCommand(String command) {
         if (command.length() == 0) {
             return  "";
         } else if (command.startsWith("#")) {
             return "#";
         }
 
+        String fullName = matchCommand(command, BASIC_COMMAND_NAMES);
+        if (fullName == null) {
+            fullName = matchCommand(command, COMMAND_NAMES);
+        }
+        if (fullName == null) {
+            return command;
+        } else {
+            return fullName;
+        }
+    }
+
+    /** Return the name in NAMES of which COMMAND is a prefix, or null if
+     *  there is none.  Throws a GameException if there are several such
+     *  names, none of them equal to COMMAND. */
+    private static String matchCommand(String command, String[] names) {
         String fullName;
         fullName = null;
-        for (String name : COMMAND_NAMES) {
+        for (String name : names) {
             if (name.equals(command)) {
                 return command;
             }
@@ -241,11 +547,7 @@ class Game {
                 fullName = name;
             }
         }
-        if (fullName == null) {
-            return command;
-        } else {
-            return fullName;
-        }
+        return fullName;
     }
 
     /** Execute command CMND.  Throws GameException on errors. */
@@ -257,14 +559,24 @@ class Game {
             case "#": case "":
                 break;
             case "auto":
-                setAuto(toSide(parts[1]));
+                if (parts.length > 2) {
+                    setAuto(toSide(parts[1]), cmnd.trim().split("\\s+")[2]);
+                } else {
+                    setAuto(toSide(parts[1]));
+                }
                 break;
             case "board":
                 printBoard();
                 break;
+            case "depth":
+                setSearchDepth(toInt(parts[1]));
+                break;
             case "dump":
                 dump();
                 break;
+            case "hash":
+                setHashSize(toInt(parts[1]));
+                break;
             case "help":
                 help();
                 break;
@@ -274,12 +586,25 @@ class Game {
             case "new":
                 clear();
                 break;
+            case "perft":
+                perft(toInt(parts[1]),
+                      parts.length > 2 && parts[2].equals("divide"));
+                break;
+            case "ponder":
+                if (!parts[1].equals("on") && !parts[1].equals("off")) {
+                    throw error("ponder setting must be on or off");
+                }
+                setPonder(parts[1].equals("on"));
+                break;
             case "quiet":
                 _verbose = false;
                 break;
             case "quit": case "q":
                 _exit = 0;
                 break;
+            case "redo":
+                _board.redo();
+                break;
             case "seed":
                 setSeed(toLong(parts[1]));
                 break;
@@ -290,9 +615,25 @@ class Game {
             case "size":
                 setSize(toInt(parts[1]));
                 break;
+            case "stats":
+                printStats();
+                break;
+            case "threads":
+                setThreads(toInt(parts[1]));
+                break;
+            case "time":
+                setMoveTime(toInt(parts[1]));
+                break;
+            case "undo":
+                _board.undo();
+                break;
             case "verbose":
                 _verbose = true;
                 break;
+            case "weights":
+                setWeights(toSide(parts[1]), parts.length > 2
+                           ? cmnd.trim().split("\\s+")[2] : null);
+                break;
             default:
                 makeMove(Integer.parseInt(parts[0]),
                          Integer.parseInt(parts[1]));
@@ -341,9 +682,31 @@ class Game {
 
     /** True iff we should print the board after each move. */
     private boolean _verbose;
-    /** Current pseudo-random number seed.  Provided as an argument to AIs
-     *  that use a random element in their choices.  Incremented for each
-     *  AI to which it is supplied.
+    /** Size in megabytes of AI transposition tables. */
+    private int _hashSize = Defaults.HASH_SIZE;
+    /** Time budget in milliseconds for each AI move. */
+    private int _moveTime = Defaults.MOVE_TIME;
+    /** Greatest depth of an AI search. */
+    private int _searchDepth = Defaults.MAX_SEARCH_DEPTH;
+    /** True iff AIs ponder. */
+    private boolean _ponder;
+    /** Number of threads each AI uses to search. */
+    private int _threads = Defaults.THREADS;
+    /** Threads for AI helper searches, or null if not yet created. */
+    private ExecutorService _searchPool;
+    /** Directory containing tablebases, or null if none. */
+    private File _tablebaseDir;
+    /** Tablebases loaded so far, indexed by board size. */
+    private Tablebase[] _tablebases;
+    /** Opening book consulted by AIs, or null if none. */
+    private OpeningBook _book;
+    /** Evaluators used by AIs, indexed by the ordinal of their Side. */
+    private final Evaluator[] _evaluators = {
+        null, new WeightedEvaluator(), new WeightedEvaluator()
+    };
+    /** Current pseudo-random number seed.  Provided as an argument to
+     *  automated players that use a random element in their choices.
+     *  Incremented for each player to which it is supplied.
      */
     private long _seed;
     /** When set to a non-negative value, indicates that play should terminate
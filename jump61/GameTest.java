@@ -0,0 +1,69 @@
+package jump61;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of Games.
+ *  @author yuxinye
+ */
+public class GameTest {
+
+    @Test
+    public void testAbbreviations() {
+        Game game = Game.headless();
+        assertEquals("wrong command", "help", game.canonicalizeCommand("h"));
+        assertEquals("wrong command", "hash", game.canonicalizeCommand("ha"));
+        assertEquals("wrong command", "dump", game.canonicalizeCommand("d"));
+        assertEquals("wrong command", "depth",
+                     game.canonicalizeCommand("de"));
+        assertEquals("wrong command", "start",
+                     game.canonicalizeCommand("st"));
+        assertEquals("wrong command", "start",
+                     game.canonicalizeCommand("sta"));
+        assertEquals("wrong command", "stats",
+                     game.canonicalizeCommand("stat"));
+        assertEquals("wrong command", "clear",
+                     game.canonicalizeCommand("c"));
+        assertEquals("wrong command", "quit",
+                     game.canonicalizeCommand("quit"));
+        assertEquals("wrong command", "q", game.canonicalizeCommand("q"));
+        assertEquals("not a command", "1", game.canonicalizeCommand("1"));
+    }
+
+    @Test(expected = GameException.class)
+    public void testAmbiguousAbbreviation() {
+        Game.headless().canonicalizeCommand("p");
+    }
+
+    @Test(expected = GameException.class)
+    public void testPlayGameRejectsCommands() {
+        Game game = Game.headless();
+        game.setSize(2);
+        game.setPlayer(Side.RED, new Player(game, Side.RED) {
+            @Override
+            String getMove() {
+                return "dump";
+            }
+        });
+        game.setAuto(Side.BLUE, "minmax");
+        game.playGame();
+    }
+
+    @Test
+    public void testHeadlessGame() {
+        Game game = Game.headless();
+        game.setSize(4);
+        game.setMoveTime(1);
+        game.setAuto(Side.RED, "minmax");
+        game.setAuto(Side.BLUE, "mcts");
+        SelfPlay.playOpening(game, 61, (n) -> { });
+        assertEquals("wrong number of opening moves",
+                     16 + SelfPlay.OPENING_MOVES,
+                     game.getBoard().numPieces());
+        Side winner = game.playGame();
+        assertEquals("game not finished", winner,
+                     game.getBoard().getWinner());
+        assertNotNull("no winner", winner);
+    }
+
+}
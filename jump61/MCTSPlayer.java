@@ -0,0 +1,294 @@
+package jump61;
+
+import java.util.Random;
+
+/** An automated Player that chooses moves by Monte Carlo tree search.
+ *  Each iteration descends the current search tree from the root,
+ *  choosing at each node the child with the highest UCT score (an upper
+ *  confidence bound on its winning rate), adds the children of the leaf
+ *  it reaches, and finishes the game from there by uniformly random
+ *  moves, crediting the winner's moves along the path.  When time runs
+ *  out, the most visited move at the root is chosen.  The subtree under
+ *  the move actually played by the opponent is kept for the next move.
+ *
+ *  The tree is stored in preallocated parallel arrays indexed by node
+ *  number, and all iterations replay moves on one scratch Board copied
+ *  from the current position, so that searching allocates nothing.
+ *  Playouts are played on a BitBoard, on which they run about twice as
+ *  fast as on a Board.
+ *  @author yuxinye
+ */
+class MCTSPlayer extends Player {
+
+    /** A new player of GAME initially COLOR that chooses moves by Monte
+     *  Carlo tree search.  SEED seeds the random choices in playouts. */
+    MCTSPlayer(Game game, Side color, long seed) {
+        this(game, color, seed, Defaults.MCTS_NODES);
+    }
+
+    /** A new player of GAME initially COLOR that chooses moves by Monte
+     *  Carlo tree search in a tree of at most NODES nodes (but enough to
+     *  hold the children of two positions on the largest board).  SEED
+     *  seeds the random choices in playouts. */
+    MCTSPlayer(Game game, Side color, long seed, int nodes) {
+        super(game, color);
+        _random = new Random(seed);
+        _capacity = Math.max(nodes, 2 * MAX_SQUARES + 1);
+    }
+
+    @Override
+    String getMove() {
+        Board board = getBoard();
+        assert getSide() == board.whoseMove();
+        int choice = searchForMove();
+        getGame().reportMove(board.row(choice), board.col(choice));
+        return String.format("%d %d", board.row(choice), board.col(choice));
+    }
+
+    /** Return a move for the current position, found by running search
+     *  iterations until my time budget per move is used up. */
+    private int searchForMove() {
+        setRoot(getBoard());
+        long deadline = System.nanoTime()
+            + moveTime() * NANOS_PER_MILLI;
+        int iterations;
+        iterations = 0;
+        do {
+            iterate();
+            iterations += 1;
+        } while (iterations % CLOCK_INTERVAL != 0
+                 || System.nanoTime() < deadline);
+
+        int best = -1;
+        for (int c = _firstChild[_root], end = c + _numChildren[_root];
+             c < end; c += 1) {
+            if (best == -1 || _visits[c] > _visits[best]) {
+                best = c;
+            }
+        }
+        _lastBoard.copy(_rootBoard);
+        _lastBoard.addSpot(getSide(), _moves[best]);
+        _root = best;
+        return _moves[best];
+    }
+
+    /** Make the root of my search tree the node for the position on
+     *  BOARD.  If BOARD follows the position after my last move by one
+     *  move, and at most half my tree is in use, keep the subtree for
+     *  BOARD, and return true.  Otherwise, start a new tree and return
+     *  false. */
+    boolean setRoot(Board board) {
+        if (_visits == null) {
+            allocate(_capacity);
+        }
+        _rootBoard.copy(board);
+        if (reuseTree()) {
+            return true;
+        }
+        newTree();
+        return false;
+    }
+
+    /** Return the move leading to the root of my search tree (that is,
+     *  the last move made before the position it represents), or -1 if
+     *  that is unknown. */
+    int rootMove() {
+        return _root < 0 ? -1 : _moves[_root];
+    }
+
+    /** Return the number of search iterations that have passed through
+     *  the root of my search tree. */
+    int rootVisits() {
+        return _root < 0 ? 0 : _visits[_root];
+    }
+
+    /** If the current position (in _rootBoard) is a child of the position
+     *  at the root of the search tree (in _lastBoard), make the node for
+     *  it the root and return true.  Otherwise return false.  The
+     *  tree is kept only if at most half of it is in use, so that there
+     *  is always room to expand the root. */
+    private boolean reuseTree() {
+        if (_root < 0 || _lastBoard.size() != _rootBoard.size()
+            || _nodeCount > _visits.length / 2) {
+            return false;
+        }
+        for (int c = _firstChild[_root], end = c + _numChildren[_root];
+             c < end; c += 1) {
+            _work.copy(_lastBoard);
+            _work.addSpot(_work.whoseMove(), _moves[c]);
+            if (_work.equals(_rootBoard)) {
+                _root = c;
+                _lastBoard.copy(_rootBoard);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Discard the search tree, leaving only a root for the current
+     *  position. */
+    private void newTree() {
+        _nodeCount = 0;
+        _root = newNode(-1, _rootBoard.whoseMove().opposite());
+        _lastBoard.copy(_rootBoard);
+    }
+
+    /** Perform one iteration of the search: select a leaf of the tree,
+     *  expand it, play out a game from it, and record the result. */
+    private void iterate() {
+        _work.copy(_rootBoard);
+        int node = _root;
+        int depth;
+        depth = 0;
+        _path[depth++] = node;
+        while (_numChildren[node] > 0) {
+            node = select(node);
+            _work.addSpot(_work.whoseMove(), _moves[node]);
+            _path[depth++] = node;
+        }
+        if (_work.getWinner() == null
+            && (_visits[node] > 0 || node == _root) && expand(node)) {
+            node = select(node);
+            _work.addSpot(_work.whoseMove(), _moves[node]);
+            _path[depth++] = node;
+        }
+        _playoutBoard.copy(_work);
+        int winner = playout(_playoutBoard).ordinal();
+        for (int k = 0; k < depth; k += 1) {
+            int n = _path[k];
+            _visits[n] += 1;
+            if (_movers[n] == winner) {
+                _wins[n] += 1;
+            }
+        }
+    }
+
+    /** Return the child of NODE with the highest UCT score, or the first
+     *  child not yet visited, if any. */
+    private int select(int node) {
+        double logVisits = Math.log(_visits[node] + 1);
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = _firstChild[node], end = c + _numChildren[node];
+             c < end; c += 1) {
+            if (_visits[c] == 0) {
+                return c;
+            }
+            double score = (double) _wins[c] / _visits[c]
+                + EXPLORATION * Math.sqrt(logVisits / _visits[c]);
+            if (score > bestScore) {
+                best = c;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /** Add children to NODE for all legal moves in the position in _work,
+     *  returning true iff there was room in the tree for them. */
+    private boolean expand(int node) {
+        Side player = _work.whoseMove();
+        Side opponent = player.opposite();
+        int numSquares = _work.size() * _work.size();
+        if (_nodeCount + numSquares > _visits.length) {
+            return false;
+        }
+        _firstChild[node] = _nodeCount;
+        int count;
+        count = 0;
+        for (int i = 0; i < numSquares; i += 1) {
+            if (_work.color(i) != opponent) {
+                newNode(i, player);
+                count += 1;
+            }
+        }
+        _numChildren[node] = count;
+        return count > 0;
+    }
+
+    /** Return a new, unvisited, leaf node for MOVE by MOVER. */
+    private int newNode(int move, Side mover) {
+        int node = _nodeCount;
+        _nodeCount += 1;
+        _moves[node] = (byte) move;
+        _movers[node] = (byte) mover.ordinal();
+        _visits[node] = _wins[node] = 0;
+        _numChildren[node] = 0;
+        return node;
+    }
+
+    /** Finish the game on BOARD by random legal moves, and return the
+     *  winner. */
+    private Side playout(BitBoard board) {
+        while (board.getWinner() == null) {
+            Side player = board.whoseMove();
+            int count = board.legalMoves(player, _playoutMoves);
+            board.addSpot(player, _playoutMoves[_random.nextInt(count)]);
+        }
+        return board.getWinner();
+    }
+
+    /** Allocate a search tree with room for NODES nodes. */
+    private void allocate(int nodes) {
+        _visits = new int[nodes];
+        _wins = new int[nodes];
+        _firstChild = new int[nodes];
+        _numChildren = new int[nodes];
+        _moves = new byte[nodes];
+        _movers = new byte[nodes];
+    }
+
+    /** Weight of the exploration term of the UCT score. */
+    private static final double EXPLORATION = 1.4;
+    /** Number of iterations between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 64;
+    /** Number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    /** Maximum number of squares on a board. */
+    private static final int MAX_SQUARES =
+        Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE;
+    /** Maximum length of a game, and so of a path in the tree. */
+    private static final int MAX_PATH =
+        4 * Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE + 2;
+
+    /** Source of random moves for playouts. */
+    private final Random _random;
+
+    /** The current position. */
+    private final Board _rootBoard = new Board(Defaults.BOARD_SIZE);
+    /** The position at the root of the search tree (after a search, the
+     *  position after my move). */
+    private final Board _lastBoard = new Board(Defaults.BOARD_SIZE);
+    /** Scratch board on which iterations are played. */
+    private final Board _work = new Board(Defaults.BOARD_SIZE);
+    /** Board on which playouts are played. */
+    private final BitBoard _playoutBoard =
+        new BitBoard(Defaults.BOARD_SIZE);
+    /** Legal moves in the current position of a playout. */
+    private final int[] _playoutMoves = new int[MAX_SQUARES];
+    /** The nodes visited by the current iteration. */
+    private final int[] _path = new int[MAX_PATH];
+
+    /** Number of nodes my search tree can hold. */
+    private final int _capacity;
+    /** The root of the search tree, or -1 if there is none. */
+    private int _root = -1;
+    /** Number of nodes in use. */
+    private int _nodeCount;
+    /** _visits[N] is the number of iterations that passed through node
+     *  N. */
+    private int[] _visits;
+    /** _wins[N] is the number of iterations through node N won by the
+     *  player who made its move. */
+    private int[] _wins;
+    /** _firstChild[N] is the first of the consecutively numbered children
+     *  of node N. */
+    private int[] _firstChild;
+    /** _numChildren[N] is the number of children of node N (0 if it has
+     *  not been expanded). */
+    private int[] _numChildren;
+    /** _moves[N] is the square number of the move leading to node N. */
+    private byte[] _moves;
+    /** _movers[N] is the ordinal of the Side that made _moves[N]. */
+    private byte[] _movers;
+}
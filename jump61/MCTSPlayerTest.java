@@ -0,0 +1,74 @@
+package jump61;
+
+import static jump61.Side.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of MCTSPlayers.
+ *  @author yuxinye
+ */
+public class MCTSPlayerTest {
+
+    /** Play a game on GAME to its end, checking that each move made is
+     *  legal, and return the winner. */
+    private static Side play(Game game) {
+        Board replay = new Board(game.getBoard());
+        Side winner = game.playGame((n) -> {
+            assertTrue("illegal move", replay.isLegal(replay.whoseMove(), n));
+            replay.addSpot(replay.whoseMove(), n);
+        });
+        assertEquals("wrong winner", replay.getWinner(), winner);
+        return winner;
+    }
+
+    @Test
+    public void testPlaysGames() {
+        for (int N = 2; N <= 4; N += 1) {
+            for (Side color : new Side[] { RED, BLUE }) {
+                Game game = Game.headless();
+                game.setSize(N);
+                game.setMoveTime(5);
+                game.setAuto(color, "mcts");
+                game.setAuto(color.opposite(), "minmax:depth=2");
+                assertNotNull("no winner", play(game));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallTree() {
+        Game game = Game.headless();
+        game.setSize(5);
+        game.setMoveTime(5);
+        game.setPlayer(RED, new MCTSPlayer(game, RED, 61, 1));
+        game.setAuto(BLUE, "minmax:depth=1");
+        assertNotNull("no winner", play(game));
+    }
+
+    @Test
+    public void testReuse() {
+        Game game = Game.headless();
+        game.setSize(4);
+        MCTSPlayer player = new MCTSPlayer(game, RED, 61);
+        player.setMoveTime(20);
+        Board board = game.getBoard();
+        String[] move = player.getMove().split(" ");
+        game.makeMove(Integer.parseInt(move[0]), Integer.parseInt(move[1]));
+        int reply = 0;
+        while (!board.isLegal(BLUE, reply)) {
+            reply += 1;
+        }
+        game.makeMove(reply);
+        assertTrue("tree not reused", player.setRoot(board));
+        assertEquals("wrong root", reply, player.rootMove());
+        assertTrue("subtree not kept", player.rootVisits() > 0);
+
+        Board other = new Board(4);
+        assertFalse("tree reused for unrelated position",
+                    player.setRoot(other));
+        assertEquals("wrong root", -1, player.rootMove());
+        assertEquals("root of new tree visited", 0, player.rootVisits());
+    }
+
+}
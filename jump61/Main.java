@@ -1,12 +1,19 @@
 package jump61;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
 import java.io.InputStreamReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 
 import static jump61.Utils.*;
+import static jump61.GameException.error;
 
 import ucb.util.CommandArgs;
 
@@ -24,7 +31,25 @@ public class Main {
     public static void main(String[] args0) {
         CommandArgs args =
             new CommandArgs("--display{0,1} --strict{0,1} --version{0,1}"
-                            + " --debug=(\\d+){0,1} --log --=(.*){0,}", args0);
+                            + " --debug=(\\d+){0,1} --hash=(\\d+){0,1}"
+                            + " --time=(\\d+){0,1} --threads=(\\d+){0,1}"
+                            + " --depth=(\\d+){0,1} --ponder{0,1}"
+                            + " --tablebase=(.+){0,1} --solve=(\\d+){0,1}"
+                            + " --book=(.+){0,1} --build-book=(.+){0,1}"
+                            + " --plies=(\\d+){0,1}"
+                            + " --red-weights=(.+){0,1}"
+                            + " --blue-weights=(.+){0,1}"
+                            + " --tune=(.+){0,1} --weights=(.+){0,1}"
+                            + " --iterations=(\\d+){0,1} --games=(\\d+){0,1}"
+                            + " --size=(\\d+(,\\d+)*){0,1}"
+                            + " --seed=(-?\\d+){0,1} --selfplay=(.+){0,1}"
+                            + " --tournament=(.+){0,1}"
+                            + " --perft=(\\d+){0,1} --divide{0,1}"
+                            + " --baseline=(.+){0,1} --candidate=(.+){0,1}"
+                            + " --elo0=(-?[\\d.]+){0,1}"
+                            + " --elo1=(-?[\\d.]+){0,1}"
+                            + " --alpha=([\\d.]+){0,1} --beta=([\\d.]+){0,1}"
+                            + " --log --=(.*){0,}", args0);
 
         if (!args.ok()) {
             usage();
@@ -42,10 +67,36 @@ public class Main {
             Utils.setMessageLevel(args.getInt("--debug"));
         }
 
+        if (args.contains("--solve")) {
+            solve(args);
+            return;
+        }
+        if (args.contains("--build-book")) {
+            buildBook(args);
+            return;
+        }
+        if (args.contains("--tune")) {
+            tune(args);
+            return;
+        }
+        if (args.contains("--selfplay")) {
+            selfPlay(args);
+            return;
+        }
+        if (args.contains("--tournament")) {
+            tournament(args);
+            return;
+        }
+        if (args.contains("--perft")) {
+            perft(args);
+            return;
+        }
+
         Game game;
         if (args.contains("--display")) {
             Display display = new Display("Jump61");
             game = new Game(display, display, display, log);
+            setOptions(game, args);
             game.play();
         } else {
             TextSource source;
@@ -68,10 +119,348 @@ public class Main {
             }
             game = new Game(new TextSource(inReaders), (b) -> {
             }, new TextReporter(), log);
+            setOptions(game, args);
             System.exit(game.play());
         }
     }
 
+    /** Apply the search options in ARGS to GAME. */
+    private static void setOptions(Game game, CommandArgs args) {
+        try {
+            if (args.contains("--hash")) {
+                game.setHashSize(args.getInt("--hash"));
+            }
+            if (args.contains("--time")) {
+                game.setMoveTime(args.getInt("--time"));
+            }
+            if (args.contains("--threads")) {
+                game.setThreads(args.getInt("--threads"));
+            }
+            if (args.contains("--depth")) {
+                game.setSearchDepth(args.getInt("--depth"));
+            }
+            if (args.contains("--ponder")) {
+                game.setPonder(true);
+            }
+            if (args.contains("--tablebase")) {
+                game.setTablebaseDir(args.getFirst("--tablebase"));
+            }
+            if (args.contains("--book")) {
+                game.setBook(args.getFirst("--book"));
+            }
+            if (args.contains("--red-weights")) {
+                game.setWeights(Side.RED, args.getFirst("--red-weights"));
+            }
+            if (args.contains("--blue-weights")) {
+                game.setWeights(Side.BLUE, args.getFirst("--blue-weights"));
+            }
+        } catch (GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Build the tablebase for the board size given by the --solve
+     *  option in ARGS, in the directory given by --tablebase (default the
+     *  current directory), using the number of threads given by --threads
+     *  (default, the number of processors).  Resumes any partially built
+     *  table found there. */
+    private static void solve(CommandArgs args) {
+        String dir =
+            args.contains("--tablebase") ? args.getFirst("--tablebase") : ".";
+        int N = args.getInt("--solve");
+        try {
+            Tablebase.generate(N, new File(dir, Tablebase.fileName(N)),
+                               workerThreads(args));
+        } catch (IOException | GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Build an opening book covering the first --plies moves (default
+     *  Defaults.BOOK_PLIES) on each board size in the --size list, and
+     *  write it to the file given by the --build-book option in ARGS.  The
+     *  position after each move is searched for --time milliseconds
+     *  (default Defaults.BOOK_MOVE_TIME), to at most --depth plies, using
+     *  the evaluation weights in the --weights file, in --threads worker
+     *  threads (default, one per processor). */
+    private static void buildBook(CommandArgs args) {
+        try {
+            OpeningBook book =
+                OpeningBook.build(sizes(args),
+                                  intOption(args, "--plies",
+                                            Defaults.BOOK_PLIES),
+                                  weights(args, "--weights"),
+                                  intOption(args, "--depth",
+                                            Defaults.MAX_SEARCH_DEPTH),
+                                  intOption(args, "--time",
+                                            Defaults.BOOK_MOVE_TIME),
+                                  workerThreads(args));
+            try (PrintWriter out =
+                 new PrintWriter(new FileWriter(
+                     args.getFirst("--build-book")))) {
+                book.write(out);
+            }
+        } catch (IOException | GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Print the perft counts (see Perft) to the depth given by the
+     *  --perft option in ARGS from the initial position on each board
+     *  size in the --size list, split by first move if --divide. */
+    private static void perft(CommandArgs args) {
+        try {
+            for (int N : sizes(args)) {
+                System.out.printf("%dx%d:%n", N, N);
+                System.out.println(new Perft(new Board(N))
+                                   .report(args.getInt("--perft"),
+                                           args.contains("--divide")));
+            }
+        } catch (GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Tune evaluation weights as directed by ARGS, writing them to the
+     *  file given by the --tune option after each iteration.  Starts from
+     *  the weights in the --weights file (default, the default weights),
+     *  and performs --iterations iterations, each of --games pairs of
+     *  games on --size boards, using --threads worker threads (default,
+     *  one per processor) and --time milliseconds per move.  The --seed
+     *  option makes runs repeatable. */
+    private static void tune(CommandArgs args) {
+        int moveTime = intOption(args, "--time", Defaults.TUNE_MOVE_TIME);
+        long seed =
+            args.contains("--seed") ? args.getLong("--seed")
+            : System.nanoTime();
+        try {
+            int[] sizes = sizes(args);
+            if (moveTime <= 0) {
+                throw error("move time must be positive");
+            }
+            WeightedEvaluator start = weights(args, "--weights");
+            Tuner tuner =
+                new Tuner(start, sizes, workerThreads(args), moveTime, seed);
+            tuner.tune(intOption(args, "--iterations",
+                                 Defaults.TUNE_ITERATIONS),
+                       intOption(args, "--games", Defaults.TUNE_PAIRS),
+                       new File(args.getFirst("--tune")));
+        } catch (IOException | GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Play games between AIs as directed by ARGS, writing their results
+     *  to the file given by the --selfplay option (see SelfPlay), and
+     *  print a summary.  Plays --games games (default
+     *  Defaults.SELFPLAY_GAMES) on boards of the sizes in the
+     *  comma-separated --size list in turn, using --threads worker
+     *  threads (default, one per processor), with the first game's seed
+     *  given by --seed (default, random).  AIs search to --depth (default
+     *  Defaults.SELFPLAY_DEPTH unless --time is given), within --time
+     *  milliseconds per move (default Defaults.MOVE_TIME, which also
+     *  bounds players that have no depth limit), using the evaluation
+     *  weights given by --red-weights and --blue-weights.  If there is a
+     *  --candidate option, performs an SPRT run instead (see sprt). */
+    private static void selfPlay(CommandArgs args) {
+        if (args.contains("--candidate")) {
+            sprt(args);
+            return;
+        }
+        int games = intOption(args, "--games", Defaults.SELFPLAY_GAMES);
+        long seed =
+            args.contains("--seed") ? args.getLong("--seed")
+            : System.nanoTime();
+        try (PrintWriter out =
+             new PrintWriter(new BufferedWriter(
+                 new FileWriter(args.getFirst("--selfplay"))))) {
+            SelfPlay runner = selfPlayRunner(args);
+            runner.setEvaluator(Side.RED, weights(args, "--red-weights"));
+            runner.setEvaluator(Side.BLUE, weights(args, "--blue-weights"));
+            long start = System.nanoTime();
+            int[] wins = runner.run(games, seed, out);
+            double minutes = (System.nanoTime() - start) / 60e9;
+            System.out.printf("%d games: Red won %d, Blue won %d"
+                              + " (%.0f games/minute)%n",
+                              games, wins[Side.RED.ordinal()],
+                              wins[Side.BLUE.ordinal()], games / minutes);
+        } catch (IOException | GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Perform an SPRT run as directed by ARGS, with options as for
+     *  selfPlay, playing pairs of games between the players described by
+     *  the --baseline (default, "minmax") and --candidate PlayerSpecs,
+     *  until an SPRT of whether the candidate is --elo1 Elo points
+     *  stronger rather than --elo0 points, with error probabilities
+     *  --alpha and --beta, reaches a decision, or --games games have been
+     *  played.  Prints the outcome and exits with code 0 if the candidate
+     *  is accepted, 2 if it is rejected, and 3 if there is no
+     *  decision. */
+    private static void sprt(CommandArgs args) {
+        int games = intOption(args, "--games", Defaults.SPRT_GAMES);
+        long seed =
+            args.contains("--seed") ? args.getLong("--seed")
+            : System.nanoTime();
+        int decision = 0;
+        try (PrintWriter out =
+             new PrintWriter(new BufferedWriter(
+                 new FileWriter(args.getFirst("--selfplay"))))) {
+            SPRT test =
+                new SPRT(doubleOption(args, "--elo0", Defaults.SPRT_ELO0),
+                         doubleOption(args, "--elo1", Defaults.SPRT_ELO1),
+                         doubleOption(args, "--alpha", Defaults.SPRT_ERROR),
+                         doubleOption(args, "--beta", Defaults.SPRT_ERROR));
+            PlayerSpec baseline =
+                PlayerSpec.parse(args.contains("--baseline")
+                                 ? args.getFirst("--baseline") : "minmax");
+            PlayerSpec candidate =
+                PlayerSpec.parse(args.getFirst("--candidate"));
+            SelfPlay runner = selfPlayRunner(args);
+            decision = runner.runSPRT(test, baseline, candidate, games, seed,
+                                      out);
+            int played = test.wins() + test.losses();
+            System.out.printf("SPRT: candidate %d-%d (%.1f%%), LLR %.2f"
+                              + " [%.2f, %.2f]: %s%n",
+                              test.wins(), test.losses(),
+                              100.0 * test.wins() / Math.max(1, played),
+                              test.llr(), test.lowerBound(),
+                              test.upperBound(),
+                              decision > 0 ? "H1 accepted"
+                              : decision < 0 ? "H0 accepted"
+                              : "no decision");
+        } catch (IOException | GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+        System.exit(decision > 0 ? 0 : decision < 0 ? 2 : 3);
+    }
+
+    /** Return a SelfPlay runner for the --size boards, using --threads
+     *  worker threads, whose AIs search to --depth (default
+     *  Defaults.SELFPLAY_DEPTH unless --time is given) within --time
+     *  milliseconds per move (default Defaults.MOVE_TIME), as given in
+     *  ARGS. */
+    private static SelfPlay selfPlayRunner(CommandArgs args) {
+        SelfPlay runner = new SelfPlay(sizes(args), workerThreads(args));
+        runner.setMoveTime(intOption(args, "--time", Defaults.MOVE_TIME));
+        runner.setSearchDepth(
+            intOption(args, "--depth",
+                      args.contains("--time") ? Defaults.MAX_SEARCH_DEPTH
+                      : Defaults.SELFPLAY_DEPTH));
+        return runner;
+    }
+
+    /** Run a round-robin tournament among the players whose PlayerSpecs
+     *  are listed one per line (ignoring blank lines and lines starting
+     *  with '#') in the file given by the --tournament option in ARGS, and
+     *  print the standings.  Each two players play --games pairs of games
+     *  (default 1) on each board size in the comma-separated --size list
+     *  (default, all sizes from 2 to Defaults.MAX_BOARD_SIZE), using
+     *  --threads worker threads (default, one per processor), with
+     *  openings determined by --seed (default, random).  Players whose
+     *  specifications give no time limit get --time milliseconds per move
+     *  (default Defaults.MOVE_TIME). */
+    private static void tournament(CommandArgs args) {
+        long seed =
+            args.contains("--seed") ? args.getLong("--seed")
+            : System.nanoTime();
+        try {
+            ArrayList<PlayerSpec> entrants = new ArrayList<>();
+            for (String line : Files.readAllLines(
+                     Paths.get(args.getFirst("--tournament")))) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    entrants.add(PlayerSpec.parse(line));
+                }
+            }
+            if (entrants.size() < 2) {
+                throw error("a tournament needs at least two players");
+            }
+            int[] allSizes = new int[Defaults.MAX_BOARD_SIZE - 1];
+            for (int k = 0; k < allSizes.length; k += 1) {
+                allSizes[k] = k + 2;
+            }
+            Tournament tournament =
+                new Tournament(entrants, sizes(args, allSizes),
+                               intOption(args, "--games", 1),
+                               workerThreads(args));
+            tournament.setMoveTime(intOption(args, "--time",
+                                             Defaults.MOVE_TIME));
+            tournament.run(seed);
+            tournament.report(System.out);
+        } catch (IOException | GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Return an evaluator using the weights in the file given by option
+     *  KEY in ARGS (default, the default weights). */
+    private static WeightedEvaluator weights(CommandArgs args, String key)
+        throws IOException {
+        if (args.contains(key)) {
+            return WeightedEvaluator.read(new File(args.getFirst(key)));
+        }
+        return new WeightedEvaluator();
+    }
+
+    /** Return the board sizes given by the comma-separated --size option
+     *  in ARGS (default, Defaults.BOARD_SIZE). */
+    private static int[] sizes(CommandArgs args) {
+        return sizes(args, new int[] { Defaults.BOARD_SIZE });
+    }
+
+    /** Return the board sizes given by the comma-separated --size option
+     *  in ARGS (default, DFLT). */
+    private static int[] sizes(CommandArgs args, int[] dflt) {
+        if (!args.contains("--size")) {
+            return dflt;
+        }
+        String[] numerals = args.getFirst("--size").split(",");
+        int[] sizes = new int[numerals.length];
+        for (int k = 0; k < sizes.length; k += 1) {
+            sizes[k] = toInt(numerals[k]);
+            if (sizes[k] < 2 || sizes[k] > Defaults.MAX_BOARD_SIZE) {
+                throw error("size must be between 2 and %d",
+                            Defaults.MAX_BOARD_SIZE);
+            }
+        }
+        return sizes;
+    }
+
+    /** Return the number of worker threads given by the --threads option
+     *  in ARGS (default, the number of processors). */
+    private static int workerThreads(CommandArgs args) {
+        return Math.max(1, intOption(args, "--threads",
+                            Runtime.getRuntime().availableProcessors()));
+    }
+
+    /** Return the value of the floating-point option KEY in ARGS, or
+     *  DFLT if it is absent. */
+    private static double doubleOption(CommandArgs args, String key,
+                                       double dflt) {
+        try {
+            return args.contains(key) ? Double.parseDouble(args.getFirst(key))
+                : dflt;
+        } catch (NumberFormatException excp) {
+            throw error("bad number in %s option", key);
+        }
+    }
+
+    /** Return the value of the integer option KEY in ARGS, or DEFAULT if
+     *  it is absent. */
+    private static int intOption(CommandArgs args, String key, int dflt) {
+        return args.contains(key) ? args.getInt(key) : dflt;
+    }
+
     /** Return true if in strict mode, where user errors are not allowed and
      *  cause error exit from the program. */
     static boolean strict() {
@@ -0,0 +1,292 @@
+package jump61;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static jump61.GameException.error;
+import static jump61.Utils.*;
+
+/** A book of scored moves for the positions early in games, built
+ *  offline by deep searches and consulted by AIs in place of searching.
+ *  Positions are identified by their canonical keys (see
+ *  Board.canonicalKey), so that a book entry covers all images of a
+ *  position under symmetries of the board, and moves are recorded as
+ *  they apply to the canonical form of the position (the image under
+ *  Board.canonicalSymmetry).  The score of a move is the value found by
+ *  searching the position after it, from the point of view of the player
+ *  making the move, on the scale of Searcher.WINNINGVALUE.
+ *
+ *  A book may be read from a file in which each non-blank line not
+ *  starting with '#' holds the key of a position, in hexadecimal,
+ *  followed by its moves, each written as SQUARE:SCORE, in order of
+ *  decreasing score.  Squares must be on the largest board, but are
+ *  not otherwise checked against the positions they belong to.
+ *  @author yuxinye
+ */
+class OpeningBook {
+
+    /** An empty book. */
+    OpeningBook() {
+    }
+
+    /** Return a book read from FILE. */
+    static OpeningBook read(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /** Return a book read from READER. */
+    static OpeningBook read(Reader reader) throws IOException {
+        OpeningBook book = new OpeningBook();
+        BufferedReader input = new BufferedReader(reader);
+        for (String line = input.readLine(); line != null;
+             line = input.readLine()) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                throw error("bad opening book entry: %s", line);
+            }
+            try {
+                long key = Long.parseUnsignedLong(parts[0], HEX);
+                int[] moves = new int[parts.length - 1],
+                    scores = new int[parts.length - 1];
+                for (int k = 1; k < parts.length; k += 1) {
+                    String[] move = parts[k].split(":");
+                    if (move.length != 2) {
+                        throw error("bad opening book entry: %s", line);
+                    }
+                    moves[k - 1] = toInt(move[0]);
+                    scores[k - 1] = toInt(move[1]);
+                    if (moves[k - 1] < 0 || moves[k - 1] >= MAX_SQUARES) {
+                        throw error("bad square in opening book entry: %s",
+                                    line);
+                    }
+                }
+                book.put(key, moves, scores);
+            } catch (NumberFormatException excp) {
+                throw error("bad opening book entry: %s", line);
+            }
+        }
+        return book;
+    }
+
+    /** Write me to OUT in the format accepted by read. */
+    void write(PrintWriter out) {
+        out.println("# jump61 opening book: key square:score ...");
+        Long[] keys = _entries.keySet().toArray(new Long[0]);
+        Arrays.sort(keys);
+        for (long key : keys) {
+            Entry entry = _entries.get(key);
+            out.print(Long.toHexString(key));
+            for (int k = 0; k < entry.moves.length; k += 1) {
+                out.printf(" %d:%d", entry.moves[k], entry.scores[k]);
+            }
+            out.println();
+        }
+        out.flush();
+    }
+
+    /** Return the number of positions I cover. */
+    int size() {
+        return _entries.size();
+    }
+
+    /** Return true iff I have an entry for BOARD. */
+    boolean contains(Board board) {
+        return _entries.containsKey(board.canonicalKey());
+    }
+
+    /** Return the highest-scoring move (square number) recorded for
+     *  BOARD, or -1 if I have no entry for it or its square is not on
+     *  BOARD.  The move is not otherwise checked: a book read from a
+     *  file may hold moves that are illegal on BOARD. */
+    int bestMove(Board board) {
+        int sym = board.canonicalSymmetry();
+        Entry entry = _entries.get(board.symmetricKey(sym));
+        if (entry == null || entry.moves[0] >= board.size() * board.size()) {
+            return -1;
+        }
+        return board.symmetricSquare(Board.inverseSymmetry(sym),
+                                     entry.moves[0]);
+    }
+
+    /** Return the score recorded for the best move from BOARD, or 0 if
+     *  I have no entry for it. */
+    int bestScore(Board board) {
+        Entry entry = _entries.get(board.canonicalKey());
+        return entry == null ? 0 : entry.scores[0];
+    }
+
+    /** Return a book covering all positions reachable in fewer than PLIES
+     *  moves from the initial positions on boards of each of the given
+     *  SIZES (but not finished games), built by searching the position
+     *  after each move with a Searcher that evaluates positions with
+     *  EVALUATOR and searches at most DEPTH plies within MOVETIME
+     *  milliseconds.  Of moves equivalent under a symmetry of their
+     *  position, only one is recorded.  The searches are divided among
+     *  THREADS threads. */
+    static OpeningBook build(int[] sizes, int plies, Evaluator evaluator,
+                             int depth, int moveTime, int threads) {
+        OpeningBook book = new OpeningBook();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Searcher> searchers = ThreadLocal.withInitial(() -> {
+            Searcher searcher =
+                new Searcher(new TranspositionTable(Defaults.HASH_SIZE));
+            searcher.setEvaluator(evaluator);
+            searcher.setMaxDepth(depth);
+            return searcher;
+        });
+        try {
+            for (int N : sizes) {
+                ArrayList<Board> layer = new ArrayList<>();
+                layer.add(new Board(N));
+                for (int ply = 0; ply < plies; ply += 1) {
+                    layer = book.addLayer(layer, ply + 1 < plies, searchers,
+                                          moveTime, pool);
+                    debug(1, "opening book %dx%d: %d positions after %d"
+                          + " plies", N, N, book.size(), ply + 1);
+                }
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("opening book search failed", excp);
+        } finally {
+            pool.shutdownNow();
+        }
+        return book;
+    }
+
+    /** Add entries for the positions in LAYER, searching each of their
+     *  moves for MOVETIME milliseconds in POOL with one of SEARCHERS.
+     *  Returns the distinct positions that follow them and whose games
+     *  are not over if EXPAND, and otherwise an empty list. */
+    private ArrayList<Board> addLayer(ArrayList<Board> layer,
+                                      boolean expand,
+                                      ThreadLocal<Searcher> searchers,
+                                      int moveTime, ExecutorService pool)
+        throws InterruptedException, ExecutionException {
+        ArrayList<Board> next = new ArrayList<>();
+        HashSet<Long> seen = new HashSet<>();
+        long budget = moveTime * NANOS_PER_MILLI;
+        for (Board position : layer) {
+            int sym = position.canonicalSymmetry();
+            Board canonical = new Board(position.size());
+            canonical.copy(position, sym);
+            Side player = canonical.whoseMove();
+            int sense = player == Side.RED ? 1 : -1;
+            ArrayList<Integer> moves = new ArrayList<>();
+            ArrayList<Future<Integer>> values = new ArrayList<>();
+            for (int n : representativeMoves(canonical)) {
+                Board child = new Board(canonical);
+                child.addSpot(player, n);
+                moves.add(n);
+                if (child.getWinner() != null) {
+                    values.add(CompletableFuture.completedFuture(
+                        sense * Searcher.WINNINGVALUE));
+                    continue;
+                }
+                if (expand && seen.add(child.canonicalKey())) {
+                    next.add(child);
+                }
+                Board work = new Board(child);
+                values.add(pool.submit(() -> {
+                    Searcher searcher = searchers.get();
+                    searcher.search(work, System.nanoTime(), budget, 1,
+                                    true);
+                    return searcher.rootValue();
+                }));
+            }
+            int[] squares = new int[moves.size()],
+                scores = new int[moves.size()];
+            for (int k = 0; k < squares.length; k += 1) {
+                squares[k] = moves.get(k);
+                scores[k] = sense * values.get(k).get();
+            }
+            put(canonical.key(), squares, scores);
+        }
+        return next;
+    }
+
+    /** Return the legal moves on BOARD, omitting any that are images
+     *  under a symmetry of BOARD of smaller-numbered squares. */
+    private static ArrayList<Integer> representativeMoves(Board board) {
+        ArrayList<Integer> moves = new ArrayList<>();
+        int symmetries = board.symmetries();
+        Side player = board.whoseMove();
+        for (int n = 0; n < board.size() * board.size(); n += 1) {
+            if (!board.isLegal(player, n)) {
+                continue;
+            }
+            boolean representative = true;
+            for (int sym = 1; sym < Board.SYMMETRIES; sym += 1) {
+                if ((symmetries & (1 << sym)) != 0
+                    && board.symmetricSquare(sym, n) < n) {
+                    representative = false;
+                }
+            }
+            if (representative) {
+                moves.add(n);
+            }
+        }
+        return moves;
+    }
+
+    /** Record MOVES with SCORES (in the canonical frame) as the entry for
+     *  the position with canonical key KEY, ordered by decreasing
+     *  score. */
+    private void put(long key, int[] moves, int[] scores) {
+        Integer[] order = new Integer[moves.length];
+        for (int k = 0; k < order.length; k += 1) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+        Entry entry = new Entry(moves.length);
+        for (int k = 0; k < order.length; k += 1) {
+            entry.moves[k] = moves[order[k]];
+            entry.scores[k] = scores[order[k]];
+        }
+        _entries.put(key, entry);
+    }
+
+    /** The scored moves from one position. */
+    private static class Entry {
+        /** An entry for NUMMOVES moves. */
+        Entry(int numMoves) {
+            moves = new int[numMoves];
+            scores = new int[numMoves];
+        }
+
+        /** The moves, as square numbers in the canonical frame. */
+        private final int[] moves;
+        /** The scores of the moves. */
+        private final int[] scores;
+    }
+
+    /** Number of squares on the largest board. */
+    private static final int MAX_SQUARES =
+        Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE;
+    /** Radix in which keys are written. */
+    private static final int HEX = 16;
+    /** Number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /** The entries, indexed by canonical key. */
+    private final Map<Long, Entry> _entries = new HashMap<>();
+}
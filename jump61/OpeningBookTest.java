@@ -0,0 +1,74 @@
+package jump61;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of OpeningBooks.
+ *  @author yuxinye
+ */
+public class OpeningBookTest {
+
+    @Test
+    public void testBuildAndProbe() throws IOException {
+        OpeningBook book =
+            OpeningBook.build(new int[] { 3 }, 2, new WeightedEvaluator(),
+                              2, 10, 1);
+        assertEquals("wrong number of positions", 4, book.size());
+        Board B = new Board(3);
+        int move = book.bestMove(B);
+        assertTrue("illegal book move", B.isLegal(B.whoseMove(), move));
+        B.addSpot(B.whoseMove(), 1, 2);
+        assertTrue("reply missing", book.contains(B));
+        Board after = new Board(B);
+        after.addSpot(after.whoseMove(), book.bestMove(B));
+        Board image = new Board(3);
+        for (int sym = 0; sym < Board.SYMMETRIES; sym += 1) {
+            image.copy(B, sym);
+            image.addSpot(image.whoseMove(), book.bestMove(image));
+            assertEquals("inconsistent move in image " + sym,
+                         after.canonicalKey(), image.canonicalKey());
+        }
+        B.addSpot(B.whoseMove(), book.bestMove(B));
+        assertEquals("position out of book", -1, book.bestMove(B));
+
+        StringWriter text = new StringWriter();
+        book.write(new PrintWriter(text));
+        OpeningBook copy = OpeningBook.read(new StringReader(text.toString()));
+        assertEquals("wrong number of positions read", 4, copy.size());
+        B.undo();
+        assertEquals("moves not preserved", book.bestMove(B),
+                     copy.bestMove(B));
+        assertEquals("scores not preserved", book.bestScore(B),
+                     copy.bestScore(B));
+    }
+
+    @Test(expected = GameException.class)
+    public void testBadEntry() throws IOException {
+        OpeningBook.read(new StringReader("1f 3:x\n"));
+    }
+
+    @Test(expected = GameException.class)
+    public void testNegativeSquare() throws IOException {
+        OpeningBook.read(new StringReader("1f -1:0\n"));
+    }
+
+    @Test(expected = GameException.class)
+    public void testSquareOffLargestBoard() throws IOException {
+        OpeningBook.read(new StringReader("1f 100:0\n"));
+    }
+
+    @Test
+    public void testMoveOffBoard() throws IOException {
+        Board B = new Board(3);
+        OpeningBook book =
+            OpeningBook.read(new StringReader(
+                Long.toHexString(B.canonicalKey()) + " 20:0\n"));
+        assertEquals("move off the board", -1, book.bestMove(B));
+    }
+
+}
@@ -0,0 +1,108 @@
+package jump61;
+
+import java.util.Formatter;
+
+/** A "perft" (performance test) count of the positions reachable from a
+ *  given position by a fixed number of legal moves, found by making and
+ *  undoing every such sequence of moves on a Board.  Since it exercises
+ *  only Board's move generation, cascades, and undo, it measures the
+ *  speed of those independently of any player, and the counts serve as a
+ *  check on any change to their implementation.  A position in which the
+ *  game has ended before the full number of moves has been made has no
+ *  successors, and so contributes nothing to the count.
+ *  @author yuxinye
+ */
+class Perft {
+
+    /** A perft counter for positions reachable from BOARD, which it does
+     *  not modify. */
+    Perft(Board board) {
+        _board = new Board(board);
+    }
+
+    /** Return the number of positions reachable from my position by
+     *  exactly DEPTH >= 0 legal moves, counting distinct sequences of
+     *  moves separately. */
+    long count(int depth) {
+        return count(_board, depth);
+    }
+
+    /** Return an array of the perft counts to DEPTH >= 1 for the moves
+     *  from my position, indexed by square number: element #N is the
+     *  number of positions reachable by DEPTH moves starting with a move
+     *  to square #N (0 if that move is illegal). */
+    long[] divide(int depth) {
+        long[] counts = new long[_board.size() * _board.size()];
+        Side player = _board.whoseMove();
+        for (int n = 0; n < counts.length; n += 1) {
+            if (_board.isLegal(player, n)) {
+                _board.addSpot(player, n);
+                _nodes += 1;
+                counts[n] = count(_board, depth - 1);
+                _board.undo();
+            }
+        }
+        return counts;
+    }
+
+    /** Return the total number of moves made by my counts so far. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return a report of the perft count to DEPTH from my position, with
+     *  the number of moves made per second, preceded by the counts for
+     *  each legal move (as row and column) if DIVIDE. */
+    String report(int depth, boolean divide) {
+        Formatter out = new Formatter();
+        long nodes0 = _nodes;
+        long start = System.nanoTime();
+        long total;
+        if (divide && depth > 0) {
+            long[] counts = divide(depth);
+            total = 0;
+            for (int n = 0; n < counts.length; n += 1) {
+                if (_board.isLegal(_board.whoseMove(), n)) {
+                    out.format("%s: %d%n", _board.moveString(n), counts[n]);
+                    total += counts[n];
+                }
+            }
+        } else {
+            total = count(depth);
+        }
+        double secs = Math.max(System.nanoTime() - start, 1) * 1e-9;
+        long nodes = _nodes - nodes0;
+        out.format("perft %d: %d positions, %d moves in %.3f s "
+                   + "(%.0f moves/s)", depth, total, nodes, secs,
+                   nodes / secs);
+        return out.toString();
+    }
+
+    /** Return the perft count to DEPTH from the position on BOARD,
+     *  which is restored on return. */
+    private long count(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (board.getWinner() != null) {
+            return 0;
+        }
+        Side player = board.whoseMove();
+        long total;
+        total = 0;
+        for (int n = board.size() * board.size() - 1; n >= 0; n -= 1) {
+            if (board.isLegal(player, n)) {
+                board.addSpot(player, n);
+                _nodes += 1;
+                total += count(board, depth - 1);
+                board.undo();
+            }
+        }
+        return total;
+    }
+
+    /** The board on which moves are made. */
+    private final Board _board;
+    /** Number of moves made so far. */
+    private long _nodes;
+}
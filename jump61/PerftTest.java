@@ -0,0 +1,76 @@
+package jump61;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of Perft counts, which also check Boards' moves, cascades,
+ *  and undo.
+ *  @author yuxinye
+ */
+public class PerftTest {
+
+    @Test
+    public void testInitialCounts() {
+        Perft P = new Perft(new Board(4));
+        long[] expected = { 1, 16, 240, 3600, 50520, 709160 };
+        for (int d = 0; d < expected.length; d += 1) {
+            assertEquals("wrong 4x4 count at depth " + d, expected[d],
+                         P.count(d));
+        }
+        assertEquals("wrong 2x2 count", 48, new Perft(new Board(2)).count(5));
+        assertEquals("wrong 3x3 count", 28368,
+                     new Perft(new Board(3)).count(5));
+    }
+
+    @Test
+    public void testAgainstCopies() {
+        Board B = new Board(4);
+        Random rand = new Random(61);
+        for (int k = 0; k < 12; k += 1) {
+            int n;
+            do {
+                n = rand.nextInt(16);
+            } while (!B.isLegal(B.whoseMove(), n));
+            B.addSpot(B.whoseMove(), n);
+        }
+        Board before = new Board(B);
+        Perft P = new Perft(B);
+        long[] counts = P.divide(4);
+        long total;
+        total = 0;
+        for (int n = 0; n < counts.length; n += 1) {
+            total += counts[n];
+            if (B.isLegal(B.whoseMove(), n)) {
+                Board C = new Board(B);
+                C.addSpot(C.whoseMove(), n);
+                assertEquals("wrong count for move " + n, copyCount(C, 3),
+                             counts[n]);
+            } else {
+                assertEquals("count for illegal move", 0, counts[n]);
+            }
+        }
+        assertEquals("divided counts do not add up", P.count(4), total);
+        assertEquals("board modified", before, B);
+    }
+
+    /** Return the perft count of BOARD to DEPTH, computed by copying
+     *  boards rather than undoing moves. */
+    private long copyCount(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long total;
+        total = 0;
+        for (int n = 0; n < board.size() * board.size(); n += 1) {
+            if (board.isLegal(board.whoseMove(), n)) {
+                Board next = new Board(board);
+                next.addSpot(next.whoseMove(), n);
+                total += copyCount(next, depth - 1);
+            }
+        }
+        return total;
+    }
+
+}
@@ -32,10 +32,42 @@ abstract class Player {
         return _game.getBoard();
     }
 
+    /** Return the time budget in milliseconds for each of my moves: the
+     *  one given to setMoveTime, if any, and otherwise my game's. */
+    final int moveTime() {
+        return _moveTime > 0 ? _moveTime : _game.moveTime();
+    }
+
+    /** Give me a time budget of MSEC > 0 milliseconds for each move,
+     *  regardless of my game's. */
+    final void setMoveTime(int msec) {
+        _moveTime = msec;
+    }
+
     /** Return my next move, or a command.  Assumes that I am of the
      *  proper color and that the game is not yet won. */
     abstract String getMove();
 
+    /** Stop any thinking I am doing in the background (by default,
+     *  none), returning when it has stopped. */
+    void stopThinking() {
+    }
+
+    /** Use transposition tables of MEGABYTES megabytes, discarding their
+     *  contents, if I use any (by default, I do not). */
+    void setHashSize(int megabytes) {
+    }
+
+    /** Return the statistics of the search for my most recent move, or
+     *  null if I do not search. */
+    SearchStats stats() {
+        return null;
+    }
+
+    /** My time budget in milliseconds for each move, or 0 to use my
+     *  game's. */
+    private int _moveTime;
+
     /** My current color. */
     private Side _color;
     /** The game I'm in. */
@@ -0,0 +1,126 @@
+package jump61;
+
+import java.io.File;
+import java.io.IOException;
+
+import static jump61.GameException.error;
+import static jump61.Utils.*;
+
+/** A description of an automated player, from which Players of any Game
+ *  may be created.  A specification has the form
+ *      KIND[:OPTION=VALUE[,OPTION=VALUE]...]
+ *  where KIND is minmax (an AI) or mcts (an MCTSPlayer), and the options
+ *  are
+ *      time=MSEC     milliseconds per move (default, the game's),
+ *      depth=N       greatest search depth (minmax only),
+ *      weights=FILE  evaluation weights (minmax only; see
+ *                    WeightedEvaluator).
+ *  To enter a new kind of player, add it to create.
+ *  @author yuxinye
+ */
+class PlayerSpec {
+
+    /** Return the specification denoted by SPEC. */
+    static PlayerSpec parse(String spec) {
+        PlayerSpec result = new PlayerSpec(spec);
+        String[] parts = spec.split(":", 2);
+        result._kind = parts[0].toLowerCase();
+        if (!result._kind.equals("minmax") && !result._kind.equals("mcts")) {
+            throw error("unknown kind of automated player: %s", parts[0]);
+        }
+        if (parts.length > 1) {
+            for (String option : parts[1].split(",")) {
+                result.setOption(option);
+            }
+        }
+        return result;
+    }
+
+    /** An unparsed specification SPEC. */
+    private PlayerSpec(String spec) {
+        _spec = spec;
+    }
+
+    /** Apply OPTION, of the form NAME=VALUE, to me. */
+    private void setOption(String option) {
+        String[] parts = option.split("=", 2);
+        if (parts.length != 2) {
+            throw error("bad player option: %s", option);
+        }
+        try {
+            switch (parts[0].toLowerCase()) {
+            case "time":
+                _moveTime = toInt(parts[1]);
+                if (_moveTime <= 0) {
+                    throw error("move time must be positive");
+                }
+                break;
+            case "depth":
+                _searchDepth = toInt(parts[1]);
+                if (_searchDepth < 1
+                    || _searchDepth > Defaults.MAX_SEARCH_DEPTH) {
+                    throw error("search depth must be between 1 and %d",
+                                Defaults.MAX_SEARCH_DEPTH);
+                }
+                break;
+            case "weights":
+                _evaluator = WeightedEvaluator.read(new File(parts[1]));
+                break;
+            default:
+                throw error("unknown player option: %s", parts[0]);
+            }
+        } catch (NumberFormatException excp) {
+            throw error("bad number in player option: %s", option);
+        } catch (IOException excp) {
+            throw error("could not read weights from %s", parts[1]);
+        }
+        if (!_kind.equals("minmax") && !parts[0].equalsIgnoreCase("time")) {
+            throw error("option %s applies only to minmax players",
+                        parts[0]);
+        }
+    }
+
+    /** Return a new Player of GAME playing COLOR as I specify, using SEED
+     *  for any random choices (made only by MCTSPlayers). */
+    Player create(Game game, Side color, long seed) {
+        Player player;
+        switch (_kind) {
+        case "minmax":
+            AI ai = new AI(game, color);
+            if (_searchDepth > 0) {
+                ai.setSearchDepth(_searchDepth);
+            }
+            if (_evaluator != null) {
+                ai.setEvaluator(_evaluator);
+            }
+            player = ai;
+            break;
+        case "mcts":
+            player = new MCTSPlayer(game, color, seed);
+            break;
+        default:
+            throw new AssertionError("bad player kind");
+        }
+        if (_moveTime > 0) {
+            player.setMoveTime(_moveTime);
+        }
+        return player;
+    }
+
+    /** Returns the specification I was parsed from. */
+    @Override
+    public String toString() {
+        return _spec;
+    }
+
+    /** The text of my specification. */
+    private final String _spec;
+    /** The kind of player: "minmax" or "mcts". */
+    private String _kind;
+    /** Time budget per move in milliseconds, or 0 for the game's. */
+    private int _moveTime;
+    /** Search depth, or 0 for the game's. */
+    private int _searchDepth;
+    /** Evaluator, or null for the game's. */
+    private Evaluator _evaluator;
+}
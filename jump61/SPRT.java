@@ -0,0 +1,99 @@
+package jump61;
+
+/** A sequential probability ratio test of whether a candidate player is
+ *  stronger than a baseline, from the results of games between them.
+ *  The hypotheses are that the candidate's Elo advantage is ELO0 (H0)
+ *  or ELO1 (H1), games being treated as independent trials whose
+ *  probability of a win by the candidate is given by the Elo formula
+ *  (there are no draws in Jump61).  After each result, the log of the
+ *  ratio of the likelihoods of the results so far under H1 and H0 is
+ *  compared with the bounds log(BETA / (1 - ALPHA)) and
+ *  log((1 - BETA) / ALPHA), where ALPHA and BETA are the desired
+ *  probabilities of accepting H1 when H0 holds and H0 when H1 holds.
+ *  @author yuxinye
+ */
+class SPRT {
+
+    /** A test of an Elo advantage of ELO0 against one of ELO1 > ELO0,
+     *  with error probabilities ALPHA and BETA (both between 0 and
+     *  1). */
+    SPRT(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0 || alpha <= 0 || alpha >= 1
+            || beta <= 0 || beta >= 1) {
+            throw GameException.error("invalid SPRT parameters");
+        }
+        double p0 = expectedScore(elo0), p1 = expectedScore(elo1);
+        _winWeight = Math.log(p1 / p0);
+        _lossWeight = Math.log((1 - p1) / (1 - p0));
+        _lower = Math.log(beta / (1 - alpha));
+        _upper = Math.log((1 - beta) / alpha);
+    }
+
+    /** Record a game won by the candidate iff CANDIDATEWON. */
+    void addResult(boolean candidateWon) {
+        if (candidateWon) {
+            _wins += 1;
+        } else {
+            _losses += 1;
+        }
+    }
+
+    /** Return the log-likelihood ratio of the results so far. */
+    double llr() {
+        return _wins * _winWeight + _losses * _lossWeight;
+    }
+
+    /** Return 1 if H1 is accepted (the candidate is better), -1 if H0 is
+     *  accepted, and 0 if the test must continue. */
+    int decision() {
+        double llr = llr();
+        if (llr >= _upper) {
+            return 1;
+        } else if (llr <= _lower) {
+            return -1;
+        } else {
+            return 0;
+        }
+    }
+
+    /** Return the number of games won by the candidate. */
+    int wins() {
+        return _wins;
+    }
+
+    /** Return the number of games lost by the candidate. */
+    int losses() {
+        return _losses;
+    }
+
+    /** Return the lower bound on the log-likelihood ratio. */
+    double lowerBound() {
+        return _lower;
+    }
+
+    /** Return the upper bound on the log-likelihood ratio. */
+    double upperBound() {
+        return _upper;
+    }
+
+    /** Return the expected score of a player ELO points stronger than its
+     *  opponent. */
+    static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / ELO_SCALE));
+    }
+
+    /** Number of Elo points by which a player must be rated above
+     *  another to be expected to win 10 times as often. */
+    private static final double ELO_SCALE = 400.0;
+
+    /** Increase in the log-likelihood ratio from a win. */
+    private final double _winWeight;
+    /** Increase in the log-likelihood ratio from a loss. */
+    private final double _lossWeight;
+    /** Log-likelihood ratio at or below which H0 is accepted. */
+    private final double _lower;
+    /** Log-likelihood ratio at or above which H1 is accepted. */
+    private final double _upper;
+    /** Games won and lost by the candidate. */
+    private int _wins, _losses;
+}
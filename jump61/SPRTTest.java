@@ -0,0 +1,73 @@
+package jump61;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of SPRTs.
+ *  @author yuxinye
+ */
+public class SPRTTest {
+
+    @Test
+    public void testLLR() {
+        SPRT T = new SPRT(0, 100, 0.05, 0.05);
+        double p1 = SPRT.expectedScore(100);
+        assertEquals("wrong expected score", 0.5, SPRT.expectedScore(0),
+                     1e-9);
+        assertEquals("wrong upper bound", Math.log(19), T.upperBound(),
+                     1e-9);
+        assertEquals("wrong lower bound", -Math.log(19), T.lowerBound(),
+                     1e-9);
+        T.addResult(true);
+        T.addResult(true);
+        T.addResult(false);
+        assertEquals("wrong LLR",
+                     2 * Math.log(2 * p1) + Math.log(2 * (1 - p1)),
+                     T.llr(), 1e-9);
+        assertEquals("wrong counts", 2, T.wins());
+        assertEquals("wrong counts", 1, T.losses());
+        assertEquals("premature decision", 0, T.decision());
+    }
+
+    @Test
+    public void testDecisions() {
+        SPRT good = new SPRT(0, 50, 0.05, 0.05),
+            bad = new SPRT(0, 50, 0.05, 0.05);
+        int games;
+        for (games = 0; good.decision() == 0; games += 1) {
+            good.addResult(games % 3 != 0);
+            bad.addResult(games % 3 == 0);
+        }
+        assertEquals("strong candidate not accepted", 1, good.decision());
+        assertEquals("weak candidate not rejected", -1, bad.decision());
+        assertTrue("too many games needed", games < 500);
+    }
+
+    @Test
+    public void testRun() {
+        SelfPlay runner = new SelfPlay(new int[] { 3 }, 2);
+        runner.setSearchDepth(1);
+        SPRT T = new SPRT(0, 400, 0.2, 0.2);
+        StringWriter output = new StringWriter();
+        int decision =
+            runner.runSPRT(T, PlayerSpec.parse("minmax"),
+                           PlayerSpec.parse("minmax"), 10, 61,
+                           new PrintWriter(output));
+        int games = T.wins() + T.losses();
+        assertEquals("wrong decision", T.decision(), decision);
+        assertTrue("too many games", games <= 10);
+        assertTrue("stopped without decision",
+                   decision != 0 || games == 10);
+        assertTrue("results not recorded",
+                   output.toString().split("\n").length >= games);
+    }
+
+    @Test(expected = GameException.class)
+    public void testBadParameters() {
+        new SPRT(10, 0, 0.05, 0.05);
+    }
+
+}
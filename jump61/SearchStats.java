@@ -0,0 +1,162 @@
+package jump61;
+
+/** Counts of the work done by a game-tree search (see Searcher): the
+ *  positions visited, static evaluations, beta cutoffs (and how many
+ *  came from the first move tried), transposition-table probes and
+ *  hits, the longest cascade caused by a move, the depth of the last
+ *  completed iteration, and the time taken.  A Searcher keeps counts for
+ *  its current search; an AI combines those of its Searchers for each
+ *  move.
+ *  @author yuxinye
+ */
+class SearchStats {
+
+    /** Reset all counts to zero. */
+    void clear() {
+        _nodes = _evals = _cutoffs = _firstCutoffs = 0;
+        _probes = _hits = 0;
+        _maxCascade = _depth = 0;
+        _elapsed = 0;
+    }
+
+    /** Add the counts in OTHER to mine, keeping my depth and time. */
+    void add(SearchStats other) {
+        _nodes += other._nodes;
+        _evals += other._evals;
+        _cutoffs += other._cutoffs;
+        _firstCutoffs += other._firstCutoffs;
+        _probes += other._probes;
+        _hits += other._hits;
+        _maxCascade = Math.max(_maxCascade, other._maxCascade);
+    }
+
+    /** Record a visit to a position, returning the number of positions
+     *  visited so far. */
+    long countNode() {
+        _nodes += 1;
+        return _nodes;
+    }
+
+    /** Record a static evaluation. */
+    void countEval() {
+        _evals += 1;
+    }
+
+    /** Record a beta cutoff, caused by the first move tried iff
+     *  FIRST. */
+    void countCutoff(boolean first) {
+        _cutoffs += 1;
+        if (first) {
+            _firstCutoffs += 1;
+        }
+    }
+
+    /** Record a transposition-table probe, which found an entry iff
+     *  HIT. */
+    void countProbe(boolean hit) {
+        _probes += 1;
+        if (hit) {
+            _hits += 1;
+        }
+    }
+
+    /** Record a move that caused CASCADE squares to explode. */
+    void countCascade(int cascade) {
+        _maxCascade = Math.max(_maxCascade, cascade);
+    }
+
+    /** Record that the deepest completed iteration was to DEPTH
+     *  plies. */
+    void setDepth(int depth) {
+        _depth = depth;
+    }
+
+    /** Record that the search took NANOS nanoseconds. */
+    void setElapsed(long nanos) {
+        _elapsed = nanos;
+    }
+
+    /** Return the number of positions visited. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of static evaluations. */
+    long evals() {
+        return _evals;
+    }
+
+    /** Return the number of beta cutoffs. */
+    long cutoffs() {
+        return _cutoffs;
+    }
+
+    /** Return the fraction of beta cutoffs caused by the first move
+     *  tried (0 if there were none). */
+    double firstCutoffRate() {
+        return _cutoffs == 0 ? 0.0 : (double) _firstCutoffs / _cutoffs;
+    }
+
+    /** Return the number of transposition-table probes. */
+    long probes() {
+        return _probes;
+    }
+
+    /** Return the number of transposition-table probes that found an
+     *  entry. */
+    long hits() {
+        return _hits;
+    }
+
+    /** Return the greatest number of squares that exploded as a result
+     *  of one move. */
+    int maxCascade() {
+        return _maxCascade;
+    }
+
+    /** Return the depth of the deepest completed iteration. */
+    int depth() {
+        return _depth;
+    }
+
+    /** Return the time taken, in nanoseconds. */
+    long elapsed() {
+        return _elapsed;
+    }
+
+    /** Return the number of positions visited per second. */
+    double nodesPerSecond() {
+        return _elapsed == 0 ? 0.0 : _nodes * NANOS_PER_SECOND / _elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d, %d nodes in %.1f ms (%.0f/s),"
+                             + " %d evals, %d cutoffs (%.0f%% first),"
+                             + " %d/%d TT hits, max cascade %d",
+                             _depth, _nodes, _elapsed / NANOS_PER_MILLI,
+                             nodesPerSecond(), _evals, _cutoffs,
+                             100 * firstCutoffRate(), _hits, _probes,
+                             _maxCascade);
+    }
+
+    /** Number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+    /** Number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** Positions visited. */
+    private long _nodes;
+    /** Static evaluations. */
+    private long _evals;
+    /** Beta cutoffs, and those caused by the first move tried. */
+    private long _cutoffs, _firstCutoffs;
+    /** Transposition-table probes, and those that found entries. */
+    private long _probes, _hits;
+    /** Greatest number of squares exploded by one move. */
+    private int _maxCascade;
+    /** Depth of the deepest completed iteration. */
+    private int _depth;
+    /** Time taken, in nanoseconds. */
+    private long _elapsed;
+}
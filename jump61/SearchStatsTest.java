@@ -0,0 +1,58 @@
+package jump61;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static jump61.Side.*;
+
+/** Unit tests of the SearchStats kept by AIs.
+ *  @author yuxinye
+ */
+public class SearchStatsTest {
+
+    @Test
+    public void testAIStats() {
+        Game game = Game.headless();
+        game.setSize(5);
+        game.setSearchDepth(3);
+        game.setMoveTime(Integer.MAX_VALUE);
+        SelfPlay.playOpening(game, 61, (n) -> { });
+        AI ai = new AI(game, game.getBoard().whoseMove());
+        ai.getMove();
+        SearchStats stats = ai.stats();
+        assertEquals("wrong depth", 3, stats.depth());
+        assertTrue("no nodes counted", stats.nodes() > 0);
+        assertTrue("no evaluations counted", stats.evals() > 0);
+        assertTrue("evaluations exceed nodes",
+                   stats.evals() <= stats.nodes());
+        assertTrue("no cutoffs counted", stats.cutoffs() > 0);
+        assertTrue("bad first-move cutoff rate",
+                   stats.firstCutoffRate() >= 0
+                   && stats.firstCutoffRate() <= 1);
+        assertTrue("hits exceed probes", stats.hits() <= stats.probes());
+        assertTrue("no time recorded", stats.elapsed() > 0);
+    }
+
+    @Test
+    public void testAdd() {
+        SearchStats A = new SearchStats(), B = new SearchStats();
+        A.countNode();
+        A.countCutoff(true);
+        A.countCascade(3);
+        A.setDepth(4);
+        B.countNode();
+        B.countCutoff(false);
+        B.countProbe(true);
+        B.countCascade(5);
+        B.setDepth(2);
+        A.add(B);
+        assertEquals("wrong nodes", 2, A.nodes());
+        assertEquals("wrong cutoff rate", 0.5, A.firstCutoffRate(), 1e-9);
+        assertEquals("wrong hits", 1, A.hits());
+        assertEquals("wrong cascade", 5, A.maxCascade());
+        assertEquals("depth changed", 4, A.depth());
+        A.clear();
+        assertEquals("not cleared", 0, A.nodes());
+    }
+
+}
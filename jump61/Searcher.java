@@ -0,0 +1,470 @@
+package jump61;
+
+import java.util.Arrays;
+
+import static jump61.Side.*;
+import static jump61.TranspositionTable.*;
+
+/** The game-tree search used by an AI.  Each Searcher works on its own
+ *  copy of the position being searched and keeps its own move-ordering
+ *  tables, so that several Searchers may run in parallel threads.  They
+ *  may share a TranspositionTable, through which Searchers that are
+ *  searching the same position help each other.
+ *  @author yuxinye
+ */
+class Searcher {
+    /** A large winning value. */
+    static final int WINNINGVALUE = 10000;
+    /** Number of nodes searched between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    /** A new Searcher that records and consults positions in TABLE. */
+    Searcher(TranspositionTable table) {
+        _table = table;
+    }
+
+    /** Return a move for the player to move on BOARD, which becomes mine
+     *  to modify, after searching the game tree from BOARD to
+     *  successively greater depths, starting at FIRSTDEPTH (but no
+     *  deeper than the limit set by setMaxDepth).  Stops when
+     *  System.nanoTime() passes START + BUDGET, when stop() is called,
+     *  when the result is a forced win or loss, or when no deeper search
+     *  could change it.  Unless MAIN, keeps searching even when more than
+     *  half of the budget is used up.  The move returned is the one found
+     *  by the deepest completed search (the search to depth FIRSTDEPTH is
+     *  always completed unless stopped).  Of root moves that are images
+     *  of one another under a symmetry of BOARD, only one is searched.
+     *  Assumes the game is not over. */
+    int search(Board board, long start, long budget, int firstDepth,
+               boolean main) {
+        int sense = board.whoseMove() == RED ? 1 : -1;
+        int maxDepth = Math.min(_maxDepth, movesLeft(board));
+        int move = -1;
+        _stats.clear();
+        resetOrdering();
+        _rootSymmetries = board.symmetries();
+        _deadline = Long.MAX_VALUE;
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth;
+             depth += 1) {
+            _searchDepth = depth;
+            _foundMove = -1;
+            _aborted = false;
+            int value = minMax(board, depth, true, sense,
+                               Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (_aborted) {
+                break;
+            }
+            move = _foundMove;
+            _value = value;
+            _stats.setDepth(depth);
+            _deadline = start + budget;
+            if (Math.abs(value) >= WINNINGVALUE
+                || main && System.nanoTime() - start > budget / 2) {
+                break;
+            }
+        }
+        _stats.setElapsed(System.nanoTime() - start);
+        return move;
+    }
+
+    /** Return the value, from Red's point of view, found by the deepest
+     *  completed iteration of my most recent search. */
+    int rootValue() {
+        return _value;
+    }
+
+    /** Return the statistics of my most recent search (or of the current
+     *  one, if it is still in progress). */
+    SearchStats stats() {
+        return _stats;
+    }
+
+    /** Use EVALUATOR for static estimates of position values. */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+    }
+
+    /** Search no deeper than DEPTH plies. */
+    void setMaxDepth(int depth) {
+        _maxDepth = depth;
+    }
+
+    /** Let each quiescence search visit at most NODES positions beyond
+     *  the leaf of the main search at which it starts (none if NODES is
+     *  0, so that leaves are evaluated statically). */
+    void setQuiescenceNodes(int nodes) {
+        _quiescenceNodes = nodes;
+    }
+
+    /** Search moves in the order described at orderMoves iff ON, and
+     *  otherwise in order of square number. */
+    void setMoveOrdering(boolean on) {
+        _moveOrdering = on;
+    }
+
+    /** Cause the current or next call of search to return as soon as
+     *  possible, until the next call of resume.  May be called from any
+     *  thread. */
+    void stop() {
+        _stopped = true;
+    }
+
+    /** Cancel the effect of any previous call to stop. */
+    void resume() {
+        _stopped = false;
+    }
+
+    /** Return an upper bound on the number of moves remaining in a game
+     *  whose current position is BOARD.  Each move adds one spot, and no
+     *  position short of a win has more spots than the total number of
+     *  neighbors of all squares. */
+    private static int movesLeft(Board board) {
+        int N = board.size();
+        return 4 * N * (N - 1) - board.numPieces() + 1;
+    }
+
+    /** Return true iff the current search has run past its deadline or
+     *  been stopped, recording that fact in _aborted.  Consults the clock
+     *  and _stopped only once every CLOCK_INTERVAL calls. */
+    private boolean timeUp() {
+        long nodes = _stats.countNode();
+        if (!_aborted && nodes % CLOCK_INTERVAL == 0
+            && (_stopped || System.nanoTime() > _deadline)) {
+            _aborted = true;
+        }
+        return _aborted;
+    }
+
+    /** Find a move from position BOARD and return its value, recording
+     *  the move found in _foundMove iff SAVEMOVE. The move
+     *  should have maximal value or have value > BETA if SENSE==1,
+     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
+     *  DEPTH levels.  Searching at level 0 returns the value found by
+     *  quiesce and does not set _foundMove. If the game is over
+     *  on BOARD, does not set _foundMove.  Results are recorded in, and
+     *  where possible taken from, _table, under the canonical key of
+     *  BOARD, so that positions that are images of one another share an
+     *  entry (whose move is recorded as it applies to the canonical
+     *  form); the best move recorded there for BOARD is searched first,
+     *  followed by the other moves in the order given by orderMoves.  If
+     *  the search runs past _deadline, sets _aborted and returns a
+     *  meaningless value. */
+    private int minMax(Board board, int depth, boolean saveMove,
+                       int sense, int alpha, int beta) {
+        if (timeUp()) {
+            return 0;
+        }
+        if (board.getWinner() != null) {
+            return staticEval(board, WINNINGVALUE);
+        }
+        if (depth == 0) {
+            _quiescenceBudget = _quiescenceNodes;
+            return quiesce(board, sense, alpha, beta);
+        }
+        int sym = board.canonicalSymmetry();
+        long key = board.symmetricKey(sym);
+        long entry = _table.probe(key);
+        _stats.countProbe(entry != 0);
+        int tableMove = -1;
+        if (entry != 0) {
+            tableMove = move(entry);
+            if (tableMove >= 0) {
+                tableMove = board.symmetricSquare(Board.inverseSymmetry(sym),
+                                                  tableMove);
+            }
+            if (!saveMove && depth(entry) >= depth) {
+                int value = value(entry);
+                int bound = bound(entry);
+                if (bound == EXACT
+                    || bound == LOWER && value >= beta
+                    || bound == UPPER && value <= alpha) {
+                    return value;
+                }
+            }
+        }
+
+        Side player = sense == 1 ? RED : BLUE;
+        int ply = _searchDepth - depth;
+        int numMoves = orderMoves(board, player, tableMove, ply);
+        int alpha0 = alpha, beta0 = beta;
+        int bestMove = -1;
+        int bestSoFar = sense == 1 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int k = 0; k < numMoves && alpha < beta; k++) {
+            int i = nextMove(ply, k, numMoves);
+            board.addSpot(player, i);
+            _stats.countCascade(board.lastCascade());
+            int eval = minMax(board, depth - 1, false, -sense, alpha, beta);
+            board.undo();
+            if (_aborted) {
+                return 0;
+            }
+            if (sense == 1 && eval > bestSoFar) {
+                bestMove = i;
+                bestSoFar = eval;
+                alpha = Math.max(alpha, eval);
+            } else if (sense == -1 && eval < bestSoFar) {
+                bestMove = i;
+                bestSoFar = eval;
+                beta = Math.min(beta, eval);
+            }
+            if (alpha >= beta) {
+                _stats.countCutoff(k == 0);
+                recordCutoff(player, i, depth, ply);
+            }
+        }
+
+        int bound;
+        if (bestSoFar <= alpha0) {
+            bound = UPPER;
+        } else if (bestSoFar >= beta0) {
+            bound = LOWER;
+        } else {
+            bound = EXACT;
+        }
+        _table.store(key, depth, bound, bestSoFar,
+                     bestMove < 0 ? -1 : board.symmetricSquare(sym, bestMove));
+        if (saveMove) {
+            _foundMove = bestMove;
+        }
+        return bestSoFar;
+    }
+
+    /** Return the value of BOARD, for which SENSE, ALPHA, and BETA are
+     *  as for minMax, found by searching only critical moves (adding to
+     *  squares of the player to move that are about to explode) until
+     *  reaching a quiet position, where the player to move has no
+     *  critical squares.  The player to move may also decline to make a
+     *  critical move, so the static estimate of BOARD is a bound on its
+     *  value.  Visits at most _quiescenceBudget positions, treating
+     *  positions beyond that as quiet.  If the search runs past
+     *  _deadline, sets _aborted and returns a meaningless value. */
+    private int quiesce(Board board, int sense, int alpha, int beta) {
+        if (timeUp()) {
+            return 0;
+        }
+        int best = staticEval(board, WINNINGVALUE);
+        if (board.getWinner() != null || _quiescenceBudget <= 0) {
+            return best;
+        }
+        _quiescenceBudget -= 1;
+        if (sense == 1) {
+            alpha = Math.max(alpha, best);
+        } else {
+            beta = Math.min(beta, best);
+        }
+        Side player = sense == 1 ? RED : BLUE;
+        for (int i = 0; i < board.size() * board.size() && alpha < beta;
+             i++) {
+            if (board.color(i) != player
+                || board.spots(i) != board.neighbors(i)) {
+                continue;
+            }
+            board.addSpot(player, i);
+            _stats.countCascade(board.lastCascade());
+            int eval = quiesce(board, -sense, alpha, beta);
+            board.undo();
+            if (_aborted) {
+                return 0;
+            }
+            if (sense == 1 && eval > best) {
+                best = eval;
+                alpha = Math.max(alpha, eval);
+            } else if (sense == -1 && eval < best) {
+                best = eval;
+                beta = Math.min(beta, eval);
+            }
+        }
+        return best;
+    }
+
+    /** Fill _moveLists[PLY] with the legal moves for PLAYER on BOARD,
+     *  and _moveScores[PLY] with their priorities, returning the number
+     *  of moves.  TABLEMOVE (the best move recorded for BOARD in _table,
+     *  if not -1) comes first, then the killer moves for PLY (the most
+     *  recent moves to cause cutoffs at PLY), then the others in order of
+     *  their history scores, with critical squares (those one spot short
+     *  of exploding) preferred among equal scores.  At ply 0, omits moves
+     *  that are not the representatives of their classes of moves
+     *  equivalent under the symmetries of the root position.  If move
+     *  ordering is off, all moves get the same priority, and so are
+     *  searched in order of square number. */
+    private int orderMoves(Board board, Side player, int tableMove,
+                           int ply) {
+        int[] moves = _moveLists[ply], scores = _moveScores[ply];
+        int[] history = _history[player.ordinal()];
+        int[] killers = _killers[ply];
+        Side opponent = player.opposite();
+        int numMoves;
+        numMoves = 0;
+        if (ply == 0 && tableMove >= 0) {
+            tableMove = representative(board, tableMove);
+        }
+        for (int i = 0; i < board.size() * board.size(); i++) {
+            if (board.color(i) == opponent
+                || ply == 0 && representative(board, i) != i) {
+                continue;
+            }
+            int score;
+            if (!_moveOrdering) {
+                score = 0;
+            } else if (i == tableMove) {
+                score = TABLE_MOVE_SCORE;
+            } else if (i == killers[0]) {
+                score = KILLER_SCORE;
+            } else if (i == killers[1]) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = 2 * history[i];
+                if (board.spots(i) == board.neighbors(i)) {
+                    score += 1;
+                }
+            }
+            moves[numMoves] = i;
+            scores[numMoves] = score;
+            numMoves += 1;
+        }
+        return numMoves;
+    }
+
+    /** Return the least square number to which any symmetry of the
+     *  root position (as given by _rootSymmetries) carries square #N of
+     *  BOARD. */
+    private int representative(Board board, int n) {
+        int result = n;
+        for (int sym = 1; sym < Board.SYMMETRIES; sym += 1) {
+            if ((_rootSymmetries & (1 << sym)) != 0) {
+                result = Math.min(result, board.symmetricSquare(sym, n));
+            }
+        }
+        return result;
+    }
+
+    /** Return the move with highest priority among entries K through
+     *  NUMMOVES - 1 of _moveLists[PLY], first exchanging it with entry K
+     *  (along with the corresponding entries of _moveScores[PLY]). */
+    private int nextMove(int ply, int k, int numMoves) {
+        int[] moves = _moveLists[ply], scores = _moveScores[ply];
+        int best = k;
+        for (int j = k + 1; j < numMoves; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = moves[best], score = scores[best];
+        moves[best] = moves[k];
+        scores[best] = scores[k];
+        moves[k] = move;
+        scores[k] = score;
+        return move;
+    }
+
+    /** Record that MOVE by PLAYER caused a cutoff in a search to DEPTH
+     *  at PLY, making it a killer move at PLY and raising its history
+     *  score. */
+    private void recordCutoff(Side player, int move, int depth, int ply) {
+        int[] killers = _killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        int[] history = _history[player.ordinal()];
+        history[move] += depth * depth;
+        if (history[move] > MAX_HISTORY) {
+            for (int[] scores : _history) {
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] /= 2;
+                }
+            }
+        }
+    }
+
+    /** Prepare the move-ordering tables for a new search: forget the
+     *  killer moves and reduce the weight of old history scores. */
+    private void resetOrdering() {
+        for (int[] killers : _killers) {
+            Arrays.fill(killers, -1);
+        }
+        for (int[] scores : _history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= 2;
+            }
+        }
+    }
+
+    /** Return a heuristic estimate of the value of board position B,
+     *  as given by _evaluator if the game is not over.  Use WINNINGVALUE
+     *  to indicate a win for Red and -WINNINGVALUE to indicate a win for
+     *  Blue. */
+    private int staticEval(Board b, int winningValue) {
+        if (b.getWinner() == RED) {
+            return winningValue;
+        }
+        if (b.getWinner() == BLUE) {
+            return -winningValue;
+        } else {
+            _stats.countEval();
+            return _evaluator.evaluate(b);
+        }
+
+    }
+
+    /** Values of positions already searched. */
+    private final TranspositionTable _table;
+    /** Source of static estimates of position values. */
+    private Evaluator _evaluator = new WeightedEvaluator();
+    /** Greatest depth to which search searches. */
+    private int _maxDepth = Defaults.MAX_SEARCH_DEPTH;
+    /** Number of positions each quiescence search may visit. */
+    private int _quiescenceNodes = Defaults.QUIESCENCE_NODES;
+    /** True iff moves are ordered by orderMoves's priorities. */
+    private boolean _moveOrdering = true;
+    /** Used to convey moves discovered by minMax. */
+    private int _foundMove;
+    /** Value found by the last completed iteration of search. */
+    private int _value;
+    /** True iff stop() has been called since the last resume(). */
+    private volatile boolean _stopped;
+
+    /** Value of System.nanoTime() after which the current search is to
+     *  be abandoned. */
+    private long _deadline;
+    /** True iff the current search was abandoned at _deadline or
+     *  stopped. */
+    private boolean _aborted;
+    /** Counts of the work done by the current search. */
+    private final SearchStats _stats = new SearchStats();
+    /** The symmetries of the root position of the current search, as
+     *  given by Board.symmetries. */
+    private int _rootSymmetries;
+    /** Number of positions the current quiescence search may still
+     *  visit. */
+    private int _quiescenceBudget;
+    /** Depth of the current iteration of searchForMove. */
+    private int _searchDepth;
+
+    /** _moveLists[P] holds the moves to be searched at ply P (that is,
+     *  P moves from the root of the search). */
+    private final int[][] _moveLists = new int[MAX_PLY][MAX_SQUARES];
+    /** _moveScores[P][K] is the priority of _moveLists[P][K]. */
+    private final int[][] _moveScores = new int[MAX_PLY][MAX_SQUARES];
+    /** _killers[P] holds the two most recent moves to cause cutoffs at
+     *  ply P, most recent first, or -1. */
+    private final int[][] _killers = new int[MAX_PLY][2];
+    /** _history[S][N] is a score for move N by the Side with ordinal S,
+     *  which grows each time the move causes a cutoff. */
+    private final int[][] _history =
+        new int[Side.values().length][MAX_SQUARES];
+
+    /** Maximum number of plies in a search. */
+    private static final int MAX_PLY = Defaults.MAX_SEARCH_DEPTH + 1;
+    /** Maximum number of squares on a board. */
+    private static final int MAX_SQUARES =
+        Defaults.MAX_BOARD_SIZE * Defaults.MAX_BOARD_SIZE;
+    /** Move-ordering priority of the move recorded in _table. */
+    private static final int TABLE_MOVE_SCORE = Integer.MAX_VALUE;
+    /** Move-ordering priority of the most recent killer move. */
+    private static final int KILLER_SCORE = Integer.MAX_VALUE - 2;
+    /** History scores are halved when any exceeds this bound, keeping
+     *  priorities below KILLER_SCORE. */
+    private static final int MAX_HISTORY = 1 << 24;
+}
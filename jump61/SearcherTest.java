@@ -0,0 +1,232 @@
+package jump61;
+
+import java.util.Random;
+
+import static jump61.Side.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of Searchers.
+ *  @author yuxinye
+ */
+public class SearcherTest {
+
+    /** A time budget that never runs out, in nanoseconds. */
+    static final long FOREVER = 1_000_000_000_000_000L;
+
+    /** Evaluator used by searches and by the plain minimax. */
+    private static final Evaluator EVALUATOR = new WeightedEvaluator();
+
+    /** Return a position on an N x N board reached by MOVES random moves
+     *  chosen with RAND, or by fewer if the game would otherwise end. */
+    static Board randomPosition(int N, int moves, Random rand) {
+        Board B = new Board(N);
+        for (int k = 0; k < moves; k += 1) {
+            Side player = B.whoseMove();
+            int n;
+            do {
+                n = rand.nextInt(N * N);
+            } while (!B.isLegal(player, n));
+            B.addSpot(player, n);
+            if (B.getWinner() != null) {
+                B.undo();
+                break;
+            }
+        }
+        return B;
+    }
+
+    /** Return a Searcher with a table of its own that searches no deeper
+     *  than DEPTH and evaluates its leaves statically, without
+     *  quiescence search. */
+    static Searcher searcher(int depth) {
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        searcher.setEvaluator(EVALUATOR);
+        searcher.setMaxDepth(depth);
+        searcher.setQuiescenceNodes(0);
+        return searcher;
+    }
+
+    /** Return the value, from Red's point of view, of BOARD found by a
+     *  plain minimax search to DEPTH plies, without pruning, transposition
+     *  table, move ordering, or quiescence search. */
+    static int minimax(Board board, int depth) {
+        if (board.getWinner() != null) {
+            return board.getWinner() == RED ? Searcher.WINNINGVALUE
+                : -Searcher.WINNINGVALUE;
+        }
+        if (depth == 0) {
+            return EVALUATOR.evaluate(board);
+        }
+        Side player = board.whoseMove();
+        int best = player == RED ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int n = 0; n < board.size() * board.size(); n += 1) {
+            if (board.isLegal(player, n)) {
+                board.addSpot(player, n);
+                int value = minimax(board, depth - 1);
+                board.undo();
+                best = player == RED ? Math.max(best, value)
+                    : Math.min(best, value);
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void testAgreesWithMinimax() {
+        Random rand = new Random(61);
+        for (int trial = 0; trial < 24; trial += 1) {
+            int N = 3 + trial % 2;
+            Board B = randomPosition(N, N + rand.nextInt(N * N), rand);
+            Searcher searcher = searcher(Defaults.MAX_SEARCH_DEPTH);
+            for (int depth = 1; depth <= 4; depth += 1) {
+                int expected = minimax(B, depth);
+                searcher.setMaxDepth(depth);
+                for (int k = 0; k < 2; k += 1) {
+                    int move = searcher.search(new Board(B),
+                                               System.nanoTime(), FOREVER,
+                                               depth, true);
+                    assertEquals("wrong value at depth " + depth, expected,
+                                 searcher.rootValue());
+                    assertTrue("illegal move",
+                               B.isLegal(B.whoseMove(), move));
+                    B.addSpot(B.whoseMove(), move);
+                    assertEquals("move does not have the root value",
+                                 expected, minimax(B, depth - 1));
+                    B.undo();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIterativeDeepening() {
+        Random rand = new Random(62);
+        for (int trial = 0; trial < 12; trial += 1) {
+            int N = 4 + trial % 2;
+            int depth = 2 + trial / 2 % 3;
+            Board B = randomPosition(N, N + rand.nextInt(N * N), rand);
+            Searcher fixed = searcher(depth);
+            fixed.search(new Board(B), System.nanoTime(), FOREVER, depth,
+                         true);
+            int move = -1;
+            for (int k = 0; k < 2; k += 1) {
+                Searcher deepening = searcher(depth);
+                int found = deepening.search(new Board(B), System.nanoTime(),
+                                             FOREVER, 1, true);
+                assertEquals("value differs from fixed-depth search",
+                             fixed.rootValue(), deepening.rootValue());
+                assertTrue("search stopped early",
+                           deepening.stats().depth() == depth
+                           || Math.abs(deepening.rootValue())
+                              >= Searcher.WINNINGVALUE);
+                assertTrue("move not deterministic", k == 0 || found == move);
+                move = found;
+            }
+        }
+    }
+
+    @Test
+    public void testBudget() {
+        long budget = 200_000_000L, slack = 300_000_000L;
+        Board B = randomPosition(6, 12, new Random(63));
+        for (boolean main : new boolean[] { true, false }) {
+            Searcher searcher = searcher(Defaults.MAX_SEARCH_DEPTH);
+            searcher.setQuiescenceNodes(Defaults.QUIESCENCE_NODES);
+            long start = System.nanoTime();
+            int move = searcher.search(new Board(B), start, budget, 1, main);
+            long elapsed = System.nanoTime() - start;
+            assertTrue("illegal move", B.isLegal(B.whoseMove(), move));
+            assertTrue("search overran its budget",
+                       elapsed < budget + slack);
+            assertTrue("search not cut off",
+                       searcher.stats().depth() < Defaults.MAX_SEARCH_DEPTH);
+            assertTrue("helper search stopped early", main
+                       || elapsed >= budget);
+        }
+    }
+
+    @Test
+    public void testOrderingPreservesResult() {
+        Random rand = new Random(64);
+        for (int trial = 0; trial < 24; trial += 1) {
+            int N = 3 + trial % 2;
+            int depth = 1 + trial / 2 % 4;
+            Board B = randomPosition(N, N + rand.nextInt(N * N), rand);
+            int[] moves = new int[2], values = new int[2];
+            for (int k = 0; k < 2; k += 1) {
+                Searcher searcher = searcher(depth);
+                searcher.setMoveOrdering(k == 0);
+                for (int d = 1; d <= depth; d += 1) {
+                    moves[k] = searcher.search(new Board(B),
+                                               System.nanoTime(), FOREVER,
+                                               d, true);
+                }
+                values[k] = searcher.rootValue();
+            }
+            assertEquals("ordering changed value", values[1], values[0]);
+            Side player = B.whoseMove();
+            int best = 0;
+            for (int n = 0; n < N * N; n += 1) {
+                if (B.isLegal(player, n)) {
+                    B.addSpot(player, n);
+                    int value = minimax(B, depth - 1);
+                    B.undo();
+                    if (value == values[0]) {
+                        best += 1;
+                    } else {
+                        assertTrue("search chose a worse move",
+                                   n != moves[0] && n != moves[1]);
+                    }
+                }
+            }
+            if (best == 1) {
+                assertEquals("ordering changed best move", moves[1],
+                             moves[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testQuiescenceFindsCascade() {
+        Board B = new Board(3);
+        for (int r = 1; r <= 3; r += 1) {
+            for (int c = 1; c <= 3; c += 1) {
+                B.set(r, c, B.neighbors(r, c), BLUE);
+            }
+        }
+        B.set(1, 1, 1, RED);
+        assertEquals("wrong player", RED, B.whoseMove());
+        Searcher searcher = searcher(1);
+        searcher.search(new Board(B), System.nanoTime(), FOREVER, 1, true);
+        assertTrue("static evaluation found a loss",
+                   searcher.rootValue() > -Searcher.WINNINGVALUE);
+        searcher.setQuiescenceNodes(1);
+        searcher.search(new Board(B), System.nanoTime(), FOREVER, 1, true);
+        assertEquals("quiescence search missed Blue's winning cascade",
+                     -Searcher.WINNINGVALUE, searcher.rootValue());
+    }
+
+    @Test
+    public void testQuiescenceBudget() {
+        Random rand = new Random(65);
+        for (int trial = 0; trial < 20; trial += 1) {
+            int N = 4 + trial % 3;
+            Board B = randomPosition(N, N * N + rand.nextInt(N * N), rand);
+            Searcher searcher = searcher(1);
+            searcher.search(new Board(B), System.nanoTime(), FOREVER, 1,
+                            true);
+            long leaves = searcher.stats().nodes() - 1;
+            for (int nodes : new int[] { 1, 4, Defaults.QUIESCENCE_NODES }) {
+                searcher.setQuiescenceNodes(nodes);
+                searcher.search(new Board(B), System.nanoTime(), FOREVER, 1,
+                                true);
+                assertTrue("quiescence search exceeded its budget",
+                           searcher.stats().nodes()
+                           <= 1 + leaves * (1 + nodes * N * N));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package jump61;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static jump61.Side.*;
+
+/** Plays batches of games between automated players (by default, AIs)
+ *  in headless Games, as many at once
+ *  as there are worker threads, recording the results compactly.  Game
+ *  #K of a batch is played on a board whose size is element K (mod the
+ *  number of sizes) of a list of sizes, and starts with a few random
+ *  moves (see playOpening) determined by the seed BASE + K, where BASE
+ *  is the seed of the batch, so that any game may be replayed.  Each AI
+ *  searches in a single thread.  Nothing is read from or written to the
+ *  console while games are in progress.
+ *
+ *  Each game's result occupies one line of output, containing the game
+ *  number, board size, seed, winner ("r" or "b"), number of moves, and
+ *  the square numbers of the moves, including the opening moves,
+ *  separated by blanks.
+ *
+ *  In an SPRT run (see runSPRT), games are played in pairs between a
+ *  baseline and a candidate player, swapping colors, until an SPRT
+ *  reaches a decision.  The candidate plays Red in even-numbered games
+ *  and Blue in odd-numbered ones.
+ *  @author yuxinye
+ */
+class SelfPlay {
+
+    /** Number of random moves starting each game. */
+    static final int OPENING_MOVES = 4;
+
+    /** A runner for games on boards whose sizes are taken in turn from
+     *  SIZES, using THREADS worker threads. */
+    SelfPlay(int[] sizes, int threads) {
+        _sizes = sizes.clone();
+        _threads = threads;
+    }
+
+    /** Let AIs spend MSEC milliseconds on each move. */
+    void setMoveTime(int msec) {
+        _moveTime = msec;
+    }
+
+    /** Let AIs search at most DEPTH plies deep. */
+    void setSearchDepth(int depth) {
+        _searchDepth = depth;
+    }
+
+    /** Let AIs playing COLOR evaluate positions with EVALUATOR. */
+    void setEvaluator(Side color, Evaluator evaluator) {
+        _evaluators[color.ordinal()] = evaluator;
+    }
+
+    /** Let COLOR be played by players described by SPEC. */
+    void setPlayer(Side color, PlayerSpec spec) {
+        _players[color.ordinal()] = spec;
+    }
+
+    /** Play GAMES games, numbered from 0, whose seeds are derived from
+     *  SEED, writing the result of each to OUT as it finishes.  Returns
+     *  the number of games won by each Side, indexed by ordinal. */
+    int[] run(int games, long seed, PrintWriter out) {
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        ArrayList<Future<Side>> results = new ArrayList<>();
+        try {
+            for (int k = 0; k < games; k += 1) {
+                int size = _sizes[k % _sizes.length];
+                long gameSeed = seed + k;
+                int number = k;
+                results.add(pool.submit(
+                    () -> play(number, size, gameSeed,
+                               _players[RED.ordinal()],
+                               _players[BLUE.ordinal()], out)));
+            }
+            int[] wins = new int[Side.values().length];
+            for (Future<Side> result : results) {
+                wins[result.get().ordinal()] += 1;
+            }
+            return wins;
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("self-play game failed", excp);
+        } finally {
+            pool.shutdownNow();
+            out.flush();
+        }
+    }
+
+    /** Play pairs of games between players described by BASELINE and
+     *  CANDIDATE, whose seeds are derived from SEED, adding the results
+     *  to TEST and writing them to OUT, until TEST reaches a decision or
+     *  MAXGAMES games have been played.  Pair #K is played on the Kth of
+     *  my board sizes (cyclically), from the same opening in both games.
+     *  Results are given to TEST in the order the games were started,
+     *  although up to twice as many pairs as there are worker threads are
+     *  played at once.  Returns TEST.decision(). */
+    int runSPRT(SPRT test, PlayerSpec baseline, PlayerSpec candidate,
+                int maxGames, long seed, PrintWriter out) {
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        ArrayDeque<Future<Side>> pending = new ArrayDeque<>();
+        try {
+            int started, finished;
+            started = finished = 0;
+            while (test.decision() == 0 && finished < maxGames) {
+                while (started < maxGames
+                       && pending.size() < 4 * _threads) {
+                    int size = _sizes[(started / 2) % _sizes.length];
+                    long gameSeed = seed + started / 2;
+                    int number = started;
+                    boolean candidateRed = started % 2 == 0;
+                    PlayerSpec red = candidateRed ? candidate : baseline,
+                        blue = candidateRed ? baseline : candidate;
+                    pending.add(pool.submit(
+                        () -> play(number, size, gameSeed, red, blue,
+                                   out)));
+                    started += 1;
+                }
+                Side winner = pending.remove().get();
+                boolean candidateRed = finished % 2 == 0;
+                test.addResult((winner == RED) == candidateRed);
+                finished += 1;
+            }
+            return test.decision();
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("self-play game failed", excp);
+        } finally {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (InterruptedException excp) {
+                /* Ignore interrupt. */
+            }
+            out.flush();
+        }
+    }
+
+    /** Play game #NUMBER on a SIZE x SIZE board from the opening given by
+     *  SEED between a player described by RED playing Red and one
+     *  described by BLUE playing Blue, write its result to OUT, and
+     *  return the winner. */
+    private Side play(int number, int size, long seed, PlayerSpec red,
+                      PlayerSpec blue, PrintWriter out) {
+        Game game = newGame(size, seed, red, blue);
+        StringBuilder moves = new StringBuilder();
+        int[] numMoves = new int[1];
+        IntConsumer record = (n) -> {
+            moves.append(' ').append(n);
+            numMoves[0] += 1;
+        };
+        playOpening(game, seed, record);
+        Side winner = game.playGame(record);
+        String line = String.format("%d %d %d %s %d%s", number, size, seed,
+                                    winner == RED ? "r" : "b", numMoves[0],
+                                    moves);
+        synchronized (out) {
+            out.println(line);
+        }
+        return winner;
+    }
+
+    /** Return a new headless Game with an N x N board whose players are
+     *  my players, using my options and SEED. */
+    Game newGame(int N, long seed) {
+        return newGame(N, seed, _players[RED.ordinal()],
+                       _players[BLUE.ordinal()]);
+    }
+
+    /** Return a new headless Game with an N x N board whose players are
+     *  described by RED and BLUE, using my options and SEED. */
+    Game newGame(int N, long seed, PlayerSpec red, PlayerSpec blue) {
+        Game game = Game.headless();
+        game.setSize(N);
+        game.setMoveTime(_moveTime);
+        game.setSearchDepth(_searchDepth);
+        game.setHashSize(Defaults.SELFPLAY_HASH_SIZE);
+        game.setEvaluator(RED, _evaluators[RED.ordinal()]);
+        game.setEvaluator(BLUE, _evaluators[BLUE.ordinal()]);
+        game.setSeed(seed);
+        game.setAuto(RED, red);
+        game.setAuto(BLUE, blue);
+        return game;
+    }
+
+    /** Make OPENING_MOVES random legal moves in GAME (but no more than
+     *  a quarter of the number of squares, so as not to decide games on
+     *  small boards), chosen using SEED, passing the square number of
+     *  each to ONMOVE. */
+    static void playOpening(Game game, long seed, IntConsumer onMove) {
+        Board board = game.getBoard();
+        int squares = board.size() * board.size();
+        int moves = Math.min(OPENING_MOVES, squares / 4);
+        Random random = new Random(seed);
+        for (int k = 0; k < moves && board.getWinner() == null; k += 1) {
+            int n;
+            do {
+                n = random.nextInt(squares);
+            } while (!board.isLegal(board.whoseMove(), n));
+            game.makeMove(n);
+            onMove.accept(n);
+        }
+    }
+
+    /** Board sizes of successive games. */
+    private final int[] _sizes;
+    /** Number of games played at once. */
+    private final int _threads;
+    /** Time budget in milliseconds for each move. */
+    private int _moveTime = Defaults.MOVE_TIME;
+    /** Greatest depth of an AI search. */
+    private int _searchDepth = Defaults.MAX_SEARCH_DEPTH;
+    /** Descriptions of the players, indexed by the ordinal of their
+     *  Side. */
+    private final PlayerSpec[] _players = {
+        null, PlayerSpec.parse("minmax"), PlayerSpec.parse("minmax")
+    };
+    /** Evaluators used by the AIs, indexed by the ordinal of their
+     *  Side. */
+    private final Evaluator[] _evaluators = {
+        null, new WeightedEvaluator(), new WeightedEvaluator()
+    };
+}
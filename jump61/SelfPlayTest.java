@@ -0,0 +1,57 @@
+package jump61;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static jump61.Side.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of SelfPlay.
+ *  @author yuxinye
+ */
+public class SelfPlayTest {
+
+    /** Return the sorted lines of output of a run of GAMES games with
+     *  seed SEED on boards of sizes 2 and 3 by AIs searching 1 ply deep,
+     *  checking that each is a valid record of a game and that the
+     *  totals of wins are correct. */
+    private String[] run(int games, long seed) {
+        SelfPlay runner = new SelfPlay(new int[] { 2, 3 }, 2);
+        runner.setSearchDepth(1);
+        StringWriter out = new StringWriter();
+        int[] wins = runner.run(games, seed, new PrintWriter(out));
+        String[] lines = out.toString().split("\\R");
+        assertEquals("wrong number of results", games, lines.length);
+        int redWins = 0;
+        for (String line : lines) {
+            String[] fields = line.split(" ");
+            int size = Integer.parseInt(fields[1]);
+            int numMoves = Integer.parseInt(fields[4]);
+            assertEquals("wrong number of moves", numMoves + 5,
+                         fields.length);
+            Board B = new Board(size);
+            for (int k = 0; k < numMoves; k += 1) {
+                int n = Integer.parseInt(fields[k + 5]);
+                assertTrue("illegal move", B.isLegal(B.whoseMove(), n));
+                B.addSpot(B.whoseMove(), n);
+            }
+            assertEquals("wrong winner", B.getWinner() == RED ? "r" : "b",
+                         fields[3]);
+            redWins += B.getWinner() == RED ? 1 : 0;
+        }
+        assertEquals("wrong count of wins", redWins, wins[RED.ordinal()]);
+        assertEquals("wrong count of wins", games - redWins,
+                     wins[BLUE.ordinal()]);
+        Arrays.sort(lines);
+        return lines;
+    }
+
+    @Test
+    public void testRun() {
+        assertArrayEquals("results not repeatable", run(6, 61), run(6, 61));
+    }
+
+}
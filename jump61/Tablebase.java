@@ -0,0 +1,342 @@
+package jump61;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static jump61.Side.*;
+
+/** A table of the exact game-theoretic values of all positions on N x N
+ *  boards, for small N.  Each position is identified by an index that
+ *  treats the squares as the digits of a mixed-radix number: a square
+ *  with K neighbors contributes a digit between 0 and 2K, where 0 means
+ *  white, 1 to K mean 1 to K red spots, and K + 1 to 2K mean 1 to K blue
+ *  spots.  Square #0 is the least significant digit.
+ *
+ *  The value of a position, from the point of view of the player to
+ *  move, is stored in one byte: D > 0 means that player can force a win
+ *  in D moves (counting both sides), -(D + 1) means the opponent can
+ *  force a win in D moves (so -1 means the game is already lost), and 0
+ *  means not yet solved.  There are no draws.
+ *
+ *  Since every move adds exactly one spot, the moves from positions with
+ *  P spots lead to positions with P + 1 spots (or to wins).  The table
+ *  is therefore built one "layer" of positions with equal numbers of
+ *  spots at a time, from the fullest layer down, with the positions of a
+ *  layer divided among several threads.  A table being built can be
+ *  saved after each layer and resumed from the last saved layer.
+ *
+ *  The file format is a sequence of big-endian ints MAGIC, VERSION, N,
+ *  and the number of spots in the last layer solved, followed by the
+ *  value bytes, in index order.
+ *  @author yuxinye
+ */
+class Tablebase {
+
+    /** Largest board size for which tables can be built.  The table for
+     *  3 x 3 has 13,505,625 positions; the one for 4 x 4 would have about
+     *  2.4 * 10**13, more than we can index or store. */
+    static final int MAX_SIZE = 3;
+
+    /** An unsolved table for N x N boards. */
+    private Tablebase(int N) {
+        if (N < 2 || N > MAX_SIZE) {
+            throw GameException.error("tablebases are available only for "
+                                      + "sizes 2 to %d", MAX_SIZE);
+        }
+        _size = N;
+        Board board = new Board(N);
+        _radix = new int[N * N];
+        long count = 1;
+        for (int n = 0; n < N * N; n += 1) {
+            _radix[n] = 2 * board.neighbors(n) + 1;
+            count *= _radix[n];
+        }
+        _values = new byte[(int) count];
+        _maxPieces = 4 * N * (N - 1);
+        _solvedLayer = _maxPieces + 1;
+    }
+
+    /** Return the standard name of the file holding the table for N x N
+     *  boards. */
+    static String fileName(int N) {
+        return String.format("jump61-%dx%d.tb", N, N);
+    }
+
+    /** Return a fully solved table for N x N boards, built using THREADS
+     *  threads. */
+    static Tablebase solve(int N, int threads) {
+        Tablebase table = new Tablebase(N);
+        try {
+            table.solveLayers(threads, null);
+        } catch (IOException excp) {
+            throw new Error("unexpected I/O error", excp);
+        }
+        return table;
+    }
+
+    /** Return a fully solved table for N x N boards, built using THREADS
+     *  threads and saved in FILE after each layer.  If FILE already holds
+     *  a partially solved table for N x N boards, resumes solving it. */
+    static Tablebase generate(int N, File file, int threads)
+        throws IOException {
+        Tablebase table;
+        if (file.exists()) {
+            table = load(file);
+            if (table.size() != N) {
+                throw GameException.error("%s holds a table for size %d",
+                                          file, table.size());
+            }
+        } else {
+            table = new Tablebase(N);
+        }
+        table.solveLayers(threads, file);
+        return table;
+    }
+
+    /** Return the (possibly partial) table stored in FILE. */
+    static Tablebase load(File file) throws IOException {
+        try (DataInputStream inp = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(file)))) {
+            if (inp.readInt() != MAGIC || inp.readInt() != VERSION) {
+                throw new IOException(file + " is not a jump61 tablebase");
+            }
+            Tablebase table = new Tablebase(inp.readInt());
+            table._solvedLayer = inp.readInt();
+            inp.readFully(table._values);
+            return table;
+        }
+    }
+
+    /** Write me to FILE, replacing its previous contents only once I have
+     *  been completely written. */
+    void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(_size);
+            out.writeInt(_solvedLayer);
+            out.write(_values);
+        }
+        if (!temp.renameTo(file)) {
+            file.delete();
+            if (!temp.renameTo(file)) {
+                throw new IOException("could not write " + file);
+            }
+        }
+    }
+
+    /** Return the board size I cover. */
+    int size() {
+        return _size;
+    }
+
+    /** Return true iff I have been completely solved. */
+    boolean complete() {
+        return _solvedLayer <= _size * _size;
+    }
+
+    /** Return the stored value of BOARD (see the class comment), or 0 if
+     *  BOARD is not covered by me. */
+    int value(Board board) {
+        int index = index(board);
+        return index < 0 ? 0 : _values[index];
+    }
+
+    /** Return a best move (square number) for the player to move on
+     *  BOARD: the fastest win if there is one, and otherwise the slowest
+     *  loss.  Returns -1 if I do not cover BOARD or its game is over. */
+    int bestMove(Board board) {
+        if (board.size() != _size || !complete()
+            || board.getWinner() != null || index(board) < 0) {
+            return -1;
+        }
+        Board work = new Board(board);
+        Side player = work.whoseMove();
+        int best = -1, bestValue = 0;
+        for (int n = 0; n < _size * _size; n += 1) {
+            if (work.isLegal(player, n)) {
+                work.addSpot(player, n);
+                int value = moveValue(work);
+                work.undo();
+                if (best == -1 || better(value, bestValue)) {
+                    best = n;
+                    bestValue = value;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Solve all layers not yet solved using THREADS threads, saving the
+     *  table in FILE after each, unless FILE is null. */
+    private void solveLayers(int threads, File file) throws IOException {
+        byte[] pieces = new byte[_values.length];
+        for (int index = 0; index < pieces.length; index += 1) {
+            pieces[index] = (byte) numPieces(index);
+        }
+        for (int layer = _solvedLayer - 1; layer >= _size * _size;
+             layer -= 1) {
+            solveLayer(layer, pieces, threads);
+            _solvedLayer = layer;
+            Utils.debug(1, "tablebase %dx%d: solved positions with %d spots",
+                        _size, _size, layer);
+            if (file != null) {
+                save(file);
+            }
+        }
+    }
+
+    /** Solve all positions with LAYER spots (where PIECES[I] is the
+     *  number of spots in position #I), using THREADS threads, each
+     *  taking every THREADS'th position. */
+    private void solveLayer(int layer, byte[] pieces, int threads) {
+        Thread[] workers = new Thread[threads];
+        for (int k = 0; k < threads; k += 1) {
+            int first = k;
+            workers[k] = new Thread(() -> {
+                Board board = new Board(_size);
+                for (int index = first; index < _values.length;
+                     index += threads) {
+                    if (pieces[index] == layer) {
+                        _values[index] = (byte) solvePosition(index, board);
+                    }
+                }
+            });
+            workers[k].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException excp) {
+                throw new Error("unexpected interrupt");
+            }
+        }
+    }
+
+    /** Return the value of position #INDEX, using BOARD as scratch.
+     *  Assumes all positions with more spots have been solved. */
+    private int solvePosition(int index, Board board) {
+        decode(index, board);
+        if (board.getWinner() != null) {
+            return -1;
+        }
+        Side player = board.whoseMove();
+        int bestValue = 0;
+        for (int n = 0; n < _size * _size; n += 1) {
+            if (board.color(n) != player.opposite()) {
+                board.addSpot(player, n);
+                int value = moveValue(board);
+                board.undo();
+                if (bestValue == 0 || better(value, bestValue)) {
+                    bestValue = value;
+                }
+            }
+        }
+        return bestValue;
+    }
+
+    /** Return the value, for the player who just moved, of the position
+     *  on BOARD resulting from that move. */
+    private int moveValue(Board board) {
+        if (board.getWinner() != null) {
+            return 1;
+        }
+        int value = _values[index(board)];
+        if (value < 0) {
+            return -value;
+        } else {
+            return -(value + 2);
+        }
+    }
+
+    /** Return true iff value V0 is better than value V1 for the player
+     *  to move: a win beats a loss, a faster win beats a slower one, and
+     *  a slower loss beats a faster one. */
+    private static boolean better(int v0, int v1) {
+        if ((v0 > 0) != (v1 > 0)) {
+            return v0 > 0;
+        } else {
+            return v0 < v1;
+        }
+    }
+
+    /** Return the index of the position on BOARD, or -1 if it is not an
+     *  N x N position with at most K spots on each square with K
+     *  neighbors. */
+    private int index(Board board) {
+        if (board.size() != _size) {
+            return -1;
+        }
+        int index = 0;
+        for (int n = _size * _size - 1; n >= 0; n -= 1) {
+            int spots = board.spots(n), limit = _radix[n] / 2;
+            int digit;
+            if (board.color(n) == WHITE) {
+                digit = 0;
+            } else if (spots > limit) {
+                return -1;
+            } else if (board.color(n) == RED) {
+                digit = spots;
+            } else {
+                digit = spots + limit;
+            }
+            index = index * _radix[n] + digit;
+        }
+        return index;
+    }
+
+    /** Set BOARD to position #INDEX. */
+    private void decode(int index, Board board) {
+        board.clear(_size);
+        for (int n = 0; n < _size * _size; n += 1) {
+            int digit = index % _radix[n], limit = _radix[n] / 2;
+            index /= _radix[n];
+            if (digit > limit) {
+                board.set(board.row(n), board.col(n), digit - limit, BLUE);
+            } else if (digit > 0) {
+                board.set(board.row(n), board.col(n), digit, RED);
+            }
+        }
+    }
+
+    /** Return the number of spots in position #INDEX. */
+    private int numPieces(int index) {
+        int pieces = 0;
+        for (int n = 0; n < _radix.length; n += 1) {
+            int digit = index % _radix[n], limit = _radix[n] / 2;
+            index /= _radix[n];
+            if (digit == 0) {
+                pieces += 1;
+            } else if (digit > limit) {
+                pieces += digit - limit;
+            } else {
+                pieces += digit;
+            }
+        }
+        return pieces;
+    }
+
+    /** First int of a tablebase file. */
+    private static final int MAGIC = 0x4a363154;
+    /** Version of the tablebase file format. */
+    private static final int VERSION = 1;
+
+    /** The board size I cover. */
+    private final int _size;
+    /** _radix[N] is the number of possible contents of square #N. */
+    private final int[] _radix;
+    /** Maximum number of spots in a position that is not a win. */
+    private final int _maxPieces;
+    /** Values of all positions, indexed by position. */
+    private final byte[] _values;
+    /** All positions with at least this many spots have been solved. */
+    private int _solvedLayer;
+}
@@ -0,0 +1,65 @@
+package jump61;
+
+import java.util.Random;
+
+import static jump61.Side.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of Tablebases.
+ *  @author yuxinye
+ */
+public class TablebaseTest {
+
+    @Test
+    public void testAgreesWithSearch() {
+        Tablebase table = Tablebase.solve(2, 2);
+        assertTrue("not complete", table.complete());
+        Random rand = new Random(2222);
+        for (int game = 0; game < 50; game += 1) {
+            Board B = new Board(2);
+            while (B.getWinner() == null) {
+                int value = table.value(B);
+                assertNotEquals("unsolved position", 0, value);
+                assertEquals("wrong winner", value > 0, wins(B));
+                int n = rand.nextInt(4);
+                if (B.isLegal(B.whoseMove(), n)) {
+                    B.addSpot(B.whoseMove(), n);
+                }
+            }
+            assertEquals("move after game over", -1, table.bestMove(B));
+        }
+    }
+
+    @Test
+    public void testBestMoveWins() {
+        Tablebase table = Tablebase.solve(2, 1);
+        Board B = new Board(2);
+        B.set(1, 1, 2, RED);
+        B.set(1, 2, 2, BLUE);
+        B.set(2, 1, 1, BLUE);
+        assertEquals("wrong player", RED, B.whoseMove());
+        assertEquals("not a win in 1", 1, table.value(B));
+        B.addSpot(RED, table.bestMove(B));
+        assertEquals("best move does not win", RED, B.getWinner());
+    }
+
+    /** Return true iff the player to move on B can force a win, found by
+     *  exhaustive search. */
+    private static boolean wins(Board B) {
+        Side player = B.whoseMove();
+        for (int n = 0; n < B.size() * B.size(); n += 1) {
+            if (B.isLegal(player, n)) {
+                B.addSpot(player, n);
+                boolean win = B.getWinner() == player || !wins(B);
+                B.undo();
+                if (win) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
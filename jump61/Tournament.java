@@ -0,0 +1,249 @@
+package jump61;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static jump61.Side.*;
+
+/** A round-robin tournament among automated players described by
+ *  PlayerSpecs.  Every pair of entrants plays a given number of pairs of
+ *  games on each of a list of board sizes, the two games of each pair
+ *  starting from the same random opening (see SelfPlay.playOpening) with
+ *  colors swapped.  Games are played in headless Games, as many at once
+ *  as there are worker threads.
+ *
+ *  Ratings are Elo ratings fitted to all results by maximum likelihood
+ *  under the Bradley-Terry model, with a weak prior of one virtual win
+ *  and one virtual loss between each pair of entrants (as in BayesElo),
+ *  so that ratings stay finite for entrants that win or lose every game.
+ *  They are relative: they average 0.
+ *  @author yuxinye
+ */
+class Tournament {
+
+    /** A tournament among ENTRANTS, playing PAIRS pairs of games between
+     *  each two of them on each of the board sizes SIZES, using THREADS
+     *  worker threads. */
+    Tournament(List<PlayerSpec> entrants, int[] sizes, int pairs,
+               int threads) {
+        _entrants = new ArrayList<>(entrants);
+        _sizes = sizes.clone();
+        _pairs = pairs;
+        _threads = threads;
+        _wins = new int[entrants.size()][entrants.size()];
+        _setup = new SelfPlay(sizes, threads);
+    }
+
+    /** Give players whose specifications do not say otherwise MSEC
+     *  milliseconds per move. */
+    void setMoveTime(int msec) {
+        _setup.setMoveTime(msec);
+    }
+
+    /** Play all games of the tournament, whose openings are determined by
+     *  SEED. */
+    void run(long seed) {
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        ArrayList<Future<Side>> games = new ArrayList<>();
+        ArrayList<int[]> players = new ArrayList<>();
+        try {
+            long gameSeed = seed;
+            for (int i = 0; i < _entrants.size(); i += 1) {
+                for (int j = i + 1; j < _entrants.size(); j += 1) {
+                    for (int size : _sizes) {
+                        for (int p = 0; p < _pairs; p += 1) {
+                            schedule(pool, i, j, size, gameSeed, games,
+                                     players);
+                            schedule(pool, j, i, size, gameSeed, games,
+                                     players);
+                            gameSeed += 1;
+                        }
+                    }
+                }
+            }
+            for (int g = 0; g < games.size(); g += 1) {
+                int[] match = players.get(g);
+                if (games.get(g).get() == RED) {
+                    addResult(match[0], match[1]);
+                } else {
+                    addResult(match[1], match[0]);
+                }
+                Utils.debug(1, "tournament: %d of %d games played", g + 1,
+                            games.size());
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("tournament game failed", excp);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Add to GAMES a game on a SIZE x SIZE board from the opening
+     *  determined by SEED between entrant #RED playing Red and entrant
+     *  #BLUE playing Blue, played using POOL, and add { RED, BLUE } to
+     *  PLAYERS. */
+    private void schedule(ExecutorService pool, int red, int blue, int size,
+                          long seed, List<Future<Side>> games,
+                          List<int[]> players) {
+        PlayerSpec redSpec = _entrants.get(red),
+            blueSpec = _entrants.get(blue);
+        games.add(pool.submit(() -> play(redSpec, blueSpec, size, seed)));
+        players.add(new int[] { red, blue });
+    }
+
+    /** Return the winner of a game on a SIZE x SIZE board from the
+     *  opening determined by SEED between a player described by RED
+     *  playing Red and one described by BLUE playing Blue, set up as
+     *  for self-play (see SelfPlay.newGame). */
+    private Side play(PlayerSpec red, PlayerSpec blue, int size,
+                      long seed) {
+        Game game = _setup.newGame(size, seed, red, blue);
+        SelfPlay.playOpening(game, seed, (n) -> { });
+        return game.playGame();
+    }
+
+    /** Record a win by entrant #WINNER over entrant #LOSER. */
+    void addResult(int winner, int loser) {
+        _wins[winner][loser] += 1;
+    }
+
+    /** Return the number of games entrant #I won against entrant #J. */
+    int wins(int i, int j) {
+        return _wins[i][j];
+    }
+
+    /** Return the number of games won by entrant #I. */
+    int wins(int i) {
+        return Arrays.stream(_wins[i]).sum();
+    }
+
+    /** Return the number of games played by entrant #I. */
+    int games(int i) {
+        int total = 0;
+        for (int j = 0; j < _entrants.size(); j += 1) {
+            total += _wins[i][j] + _wins[j][i];
+        }
+        return total;
+    }
+
+    /** Return the Elo ratings of the entrants, indexed like them. */
+    double[] ratings() {
+        int n = _entrants.size();
+        double[] gamma = new double[n];
+        Arrays.fill(gamma, 1.0);
+        for (int iter = 0; iter < MAX_ITERATIONS; iter += 1) {
+            double change = 0.0;
+            for (int i = 0; i < n; i += 1) {
+                double won = 0.0, sum = 0.0;
+                for (int j = 0; j < n; j += 1) {
+                    if (j != i) {
+                        int played = _wins[i][j] + _wins[j][i];
+                        won += _wins[i][j] + PRIOR_WINS;
+                        sum += (played + 2 * PRIOR_WINS)
+                            / (gamma[i] + gamma[j]);
+                    }
+                }
+                double next = sum == 0.0 ? 1.0 : won / sum;
+                change = Math.max(change,
+                                  Math.abs(Math.log(next / gamma[i])));
+                gamma[i] = next;
+            }
+            double logMean = 0.0;
+            for (double g : gamma) {
+                logMean += Math.log(g) / n;
+            }
+            for (int i = 0; i < n; i += 1) {
+                gamma[i] /= Math.exp(logMean);
+            }
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+        double[] ratings = new double[n];
+        for (int i = 0; i < n; i += 1) {
+            ratings[i] = ELO_SCALE * Math.log10(gamma[i]);
+        }
+        return ratings;
+    }
+
+    /** Print the standings to OUT: for each entrant, in order of rating,
+     *  its rating with the half-width of its 95% confidence interval, the
+     *  number of games it played, its score, with a 95% confidence
+     *  interval, and its specification.  Follow with the results of each
+     *  pairing. */
+    void report(PrintStream out) {
+        double[] ratings = ratings();
+        Integer[] order = new Integer[_entrants.size()];
+        for (int i = 0; i < order.length; i += 1) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(ratings[b], ratings[a]));
+        out.printf("Rank   Elo   +/-  Games  Score  95%% CI           "
+                   + "Player%n");
+        for (int r = 0; r < order.length; r += 1) {
+            int i = order[r];
+            int games = games(i);
+            double score = games == 0 ? 0.5 : (double) wins(i) / games;
+            double margin =
+                games == 0 ? 0.0
+                : Z95 * Math.sqrt(score * (1 - score) / games);
+            double low = Math.max(0.0, score - margin),
+                high = Math.min(1.0, score + margin);
+            out.printf("%4d %+5.0f %5.0f %6d %5.1f%%  [%5.1f%%, %5.1f%%]"
+                       + "  %s%n", r + 1, ratings[i],
+                       (elo(high) - elo(low)) / 2, games, 100 * score,
+                       100 * low, 100 * high, _entrants.get(i));
+        }
+        out.println();
+        for (int i = 0; i < _entrants.size(); i += 1) {
+            for (int j = i + 1; j < _entrants.size(); j += 1) {
+                out.printf("%s vs. %s: %d-%d%n", _entrants.get(i),
+                           _entrants.get(j), _wins[i][j], _wins[j][i]);
+            }
+        }
+        out.flush();
+    }
+
+    /** Return the Elo difference corresponding to an expected score of
+     *  SCORE, limited to scores between MIN_SCORE and 1 - MIN_SCORE. */
+    private static double elo(double score) {
+        double s = Math.max(MIN_SCORE, Math.min(1 - MIN_SCORE, score));
+        return -ELO_SCALE * Math.log10(1 / s - 1);
+    }
+
+    /** Number of Elo points by which a player must be rated above
+     *  another to be expected to win 10 times as often. */
+    private static final double ELO_SCALE = 400.0;
+    /** Virtual wins credited to each entrant against each other. */
+    private static final double PRIOR_WINS = 1.0;
+    /** Limit on the iterations used to fit ratings. */
+    private static final int MAX_ITERATIONS = 10000;
+    /** Ratings are fitted when no strength changes by a factor greater
+     *  than exp(TOLERANCE) in an iteration. */
+    private static final double TOLERANCE = 1e-10;
+    /** Number of standard errors in the half-width of a 95% confidence
+     *  interval. */
+    private static final double Z95 = 1.96;
+    /** Least score converted to an Elo difference. */
+    private static final double MIN_SCORE = 0.001;
+
+    /** The specifications of the entrants. */
+    private final List<PlayerSpec> _entrants;
+    /** Board sizes played on. */
+    private final int[] _sizes;
+    /** Pairs of games between each two entrants on each size. */
+    private final int _pairs;
+    /** Number of games played at once. */
+    private final int _threads;
+    /** Sets up each game with the options of a self-play game. */
+    private final SelfPlay _setup;
+    /** _wins[I][J] is the number of games entrant #I won against entrant
+     *  #J. */
+    private final int[][] _wins;
+}
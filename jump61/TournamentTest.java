@@ -0,0 +1,54 @@
+package jump61;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of Tournaments.
+ *  @author yuxinye
+ */
+public class TournamentTest {
+
+    @Test
+    public void testRatings() {
+        Tournament T =
+            new Tournament(Arrays.asList(PlayerSpec.parse("minmax"),
+                                         PlayerSpec.parse("mcts")),
+                           new int[] { 4 }, 1, 1);
+        double[] ratings = T.ratings();
+        assertEquals("unplayed ratings not equal", ratings[0], ratings[1],
+                     1e-6);
+        for (int k = 0; k < 3; k += 1) {
+            T.addResult(0, 1);
+        }
+        T.addResult(1, 0);
+        ratings = T.ratings();
+        assertEquals("ratings do not average 0", 0.0,
+                     ratings[0] + ratings[1], 1e-6);
+        assertEquals("wrong rating difference", 400 * Math.log10(2.0),
+                     ratings[0] - ratings[1], 1e-6);
+        assertEquals("wrong game count", 4, T.games(1));
+        assertEquals("wrong win count", 3, T.wins(0));
+    }
+
+    @Test
+    public void testRun() {
+        Tournament T =
+            new Tournament(Arrays.asList(PlayerSpec.parse("minmax:depth=1"),
+                                         PlayerSpec.parse("minmax:depth=2"),
+                                         PlayerSpec.parse("mcts:time=1")),
+                           new int[] { 2, 3 }, 1, 2);
+        T.setMoveTime(1);
+        T.run(61);
+        for (int i = 0; i < 3; i += 1) {
+            assertEquals("wrong number of games", 8, T.games(i));
+        }
+    }
+
+    @Test(expected = GameException.class)
+    public void testBadSpec() {
+        PlayerSpec.parse("mcts:depth=3");
+    }
+
+}
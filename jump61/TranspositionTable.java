@@ -0,0 +1,145 @@
+package jump61;
+
+import java.util.Arrays;
+
+/** A fixed-size table of previously searched positions, indexed by
+ *  Board.canonicalKey().  Each entry records the depth to which a
+ *  position was searched, its value (relative to Red, as for
+ *  Searcher.staticEval), whether that value is exact or only a lower or
+ *  upper bound, and the best move found.  Entries are packed into a
+ *  single long, so that probe returns either 0 (no entry) or a packed
+ *  entry whose fields are extracted with value, depth, bound, and
+ *  move.
+ *
+ *  The table is a power-of-two array of slots, each holding an entry and
+ *  its key XORed with the entry, so that a slot torn by unsynchronized
+ *  writers from several threads simply fails to match on probe.  A new
+ *  entry replaces an existing one if it is for the same position, if the
+ *  existing one was stored before the last call to newSearch, or if the
+ *  new one comes from a search at least as deep.
+ *  @author yuxinye
+ */
+class TranspositionTable {
+
+    /** Bound type of an entry whose value is exact. */
+    static final int EXACT = 1;
+    /** Bound type of an entry whose value is a lower bound. */
+    static final int LOWER = 2;
+    /** Bound type of an entry whose value is an upper bound. */
+    static final int UPPER = 3;
+
+    /** Number of bytes in one slot. */
+    static final int SLOT_BYTES = 2 * Long.BYTES;
+
+    /** A table occupying about MEGABYTES megabytes (at least one slot). */
+    TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /** Make me occupy about MEGABYTES megabytes (at least one slot),
+     *  removing all entries.  Must not be called during a search. */
+    void resize(int megabytes) {
+        long slots = ((long) megabytes << 20) / SLOT_BYTES;
+        int size = (int) Long.highestOneBit(Math.max(1,
+            Math.min(slots, Integer.MAX_VALUE / 2)));
+        _slots = new long[2 * size];
+        _mask = size - 1;
+        _age = 0;
+    }
+
+    /** Return the number of entries I can hold. */
+    int capacity() {
+        return _mask + 1;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(_slots, 0);
+        _age = 0;
+    }
+
+    /** Mark the start of a new search, making all current entries
+     *  candidates for replacement. */
+    void newSearch() {
+        _age = (_age + 1) & AGE_MASK;
+    }
+
+    /** Return the entry for the position with key KEY, or 0 if there is
+     *  none. */
+    long probe(long key) {
+        int k = 2 * ((int) key & _mask);
+        long data = _slots[k + 1];
+        if (data != 0 && (_slots[k] ^ data) == key) {
+            return data;
+        }
+        return 0;
+    }
+
+    /** Record that the position with key KEY, searched to DEPTH, has
+     *  value VALUE of bound type BOUND (EXACT, LOWER, or UPPER) and best
+     *  move MOVE (a square number, or -1 if none). */
+    void store(long key, int depth, int bound, int value, int move) {
+        int k = 2 * ((int) key & _mask);
+        long old = _slots[k + 1];
+        if (old != 0 && (_slots[k] ^ old) != key && age(old) == _age
+            && depth(old) > depth) {
+            return;
+        }
+        long data = ((long) value << VALUE_SHIFT)
+            | ((long) _age << AGE_SHIFT)
+            | ((long) (move + 1) << MOVE_SHIFT)
+            | ((long) depth << DEPTH_SHIFT)
+            | bound;
+        _slots[k] = key ^ data;
+        _slots[k + 1] = data;
+    }
+
+    /** Return the value recorded in ENTRY. */
+    static int value(long entry) {
+        return (int) (entry >> VALUE_SHIFT);
+    }
+
+    /** Return the search depth recorded in ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & FIELD_MASK;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) recorded in
+     *  ENTRY. */
+    static int bound(long entry) {
+        return (int) entry & BOUND_MASK;
+    }
+
+    /** Return the best move recorded in ENTRY, or -1 if none. */
+    static int move(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & FIELD_MASK) - 1;
+    }
+
+    /** Return the search generation in which ENTRY was stored. */
+    private static int age(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /** Mask for the bound field of an entry. */
+    private static final int BOUND_MASK = 3;
+    /** Position of the depth field of an entry. */
+    private static final int DEPTH_SHIFT = 2;
+    /** Position of the move field of an entry. */
+    private static final int MOVE_SHIFT = 10;
+    /** Position of the age field of an entry. */
+    private static final int AGE_SHIFT = 18;
+    /** Position of the value field of an entry. */
+    private static final int VALUE_SHIFT = 32;
+    /** Mask for the depth and move fields of an entry. */
+    private static final int FIELD_MASK = 0xff;
+    /** Mask for the age field of an entry. */
+    private static final int AGE_MASK = 0xff;
+
+    /** Slot #K holds the key of its position XORed with its entry in
+     *  element 2K and the entry in element 2K + 1. */
+    private long[] _slots;
+    /** Mask selecting a slot number from a key. */
+    private int _mask;
+    /** Current search generation. */
+    private int _age;
+}
@@ -0,0 +1,107 @@
+package jump61;
+
+import static jump61.TranspositionTable.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of TranspositionTables.
+ *  @author yuxinye
+ */
+public class TranspositionTableTest {
+
+    /** An arbitrary key. */
+    private static final long KEY = 0x0123456789abcdefL;
+
+    @Test
+    public void testCapacity() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals("wrong capacity", (1 << 20) / SLOT_BYTES,
+                     table.capacity());
+    }
+
+    @Test
+    public void testResize() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 1, EXACT, 7, 3);
+        table.resize(2);
+        assertEquals("wrong capacity", (2 << 20) / SLOT_BYTES,
+                     table.capacity());
+        assertEquals("entry survived resize", 0, table.probe(KEY));
+        table.store(KEY, 1, EXACT, 7, 3);
+        assertEquals("entry not stored after resize", 7,
+                     value(table.probe(KEY)));
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals("entry in empty table", 0, table.probe(KEY));
+        table.store(KEY, 5, EXACT, 123, 42);
+        long entry = table.probe(KEY);
+        assertNotEquals("entry not found", 0, entry);
+        assertEquals("wrong depth", 5, depth(entry));
+        assertEquals("wrong bound", EXACT, bound(entry));
+        assertEquals("wrong value", 123, value(entry));
+        assertEquals("wrong move", 42, move(entry));
+        table.clear();
+        assertEquals("entry survived clear", 0, table.probe(KEY));
+    }
+
+    @Test
+    public void testPacking() {
+        TranspositionTable table = new TranspositionTable(1);
+        int[] values = { 0, 1, -1, Searcher.WINNINGVALUE,
+                         -Searcher.WINNINGVALUE, Integer.MAX_VALUE,
+                         Integer.MIN_VALUE };
+        int[] bounds = { EXACT, LOWER, UPPER };
+        int[] moves = { -1, 0, 99 };
+        for (int value : values) {
+            for (int bound : bounds) {
+                for (int move : moves) {
+                    table.store(KEY, 255, bound, value, move);
+                    long entry = table.probe(KEY);
+                    assertEquals("wrong value", value, value(entry));
+                    assertEquals("wrong bound", bound, bound(entry));
+                    assertEquals("wrong move", move, move(entry));
+                    assertEquals("wrong depth", 255, depth(entry));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testKeyCheck() {
+        TranspositionTable table = new TranspositionTable(1);
+        long other = KEY + table.capacity();
+        table.store(KEY, 1, EXACT, 7, 3);
+        assertEquals("entry found for another key in its slot", 0,
+                     table.probe(other));
+        assertEquals("entry found for another key", 0,
+                     table.probe(KEY ^ (1L << 62)));
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long other = KEY + table.capacity();
+        table.store(KEY, 5, EXACT, 1, 1);
+        table.store(other, 3, EXACT, 2, 2);
+        assertEquals("shallower entry replaced deeper one", 1,
+                     value(table.probe(KEY)));
+        assertEquals("shallower entry stored", 0, table.probe(other));
+        table.store(other, 5, LOWER, 3, 3);
+        assertEquals("entry of equal depth not stored", 3,
+                     value(table.probe(other)));
+        assertEquals("replaced entry still found", 0, table.probe(KEY));
+        table.store(other, 1, UPPER, 4, 4);
+        assertEquals("entry for same position not replaced", 4,
+                     value(table.probe(other)));
+        table.store(KEY, 9, EXACT, 5, 5);
+        table.newSearch();
+        table.store(other, 1, EXACT, 6, 6);
+        assertEquals("entry from old search not replaced", 6,
+                     value(table.probe(other)));
+    }
+
+}
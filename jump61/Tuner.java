@@ -0,0 +1,172 @@
+package jump61;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static jump61.Side.*;
+
+/** Tunes the weights of a WeightedEvaluator by simultaneous perturbation
+ *  stochastic approximation (SPSA).  Each iteration perturbs all the
+ *  current weights at once by a random +/- c in each coordinate, plays
+ *  pairs of games between AIs using the two perturbed weight vectors
+ *  (one game of each pair with each color, from the same randomly chosen
+ *  opening), and moves the weights toward the perturbation that scored
+ *  better, by an amount proportional to the difference in scores.  The
+ *  step size and c shrink as the run proceeds, following the usual SPSA
+ *  gain sequences.
+ *
+ *  Games are set up as for SelfPlay, and played as many at once as there
+ *  are worker threads.
+ *  @author yuxinye
+ */
+class Tuner {
+
+    /** A Tuner starting from the weights of START, playing pairs of games
+     *  on boards whose sizes are taken in turn from SIZES, using THREADS
+     *  worker threads, with MOVETIME milliseconds per move.  SEED
+     *  determines the perturbations and openings used. */
+    Tuner(WeightedEvaluator start, int[] sizes, int threads, int moveTime,
+          long seed) {
+        int[] weights = start.weights();
+        _theta = new double[weights.length];
+        for (int i = 0; i < weights.length; i += 1) {
+            _theta[i] = weights[i];
+        }
+        _sizes = sizes.clone();
+        _threads = threads;
+        _games = new SelfPlay(sizes, 1);
+        _games.setMoveTime(moveTime);
+        _random = new Random(seed);
+    }
+
+    /** Perform ITERATIONS iterations of tuning, playing PAIRS pairs of
+     *  games in each, writing the current weights to OUTPUT (if not null)
+     *  after each iteration, and return an evaluator with the final
+     *  weights. */
+    WeightedEvaluator tune(int iterations, int pairs, File output)
+        throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        try {
+            for (int k = 1; k <= iterations; k += 1) {
+                iterate(k, iterations, pairs, pool);
+                if (output != null) {
+                    try (PrintWriter out = new PrintWriter(output)) {
+                        current().write(out);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return current();
+    }
+
+    /** Return an evaluator with the current weights, rounded. */
+    WeightedEvaluator current() {
+        return new WeightedEvaluator(round(_theta, 0, null));
+    }
+
+    /** Perform iteration #K of ITERATIONS, playing PAIRS pairs of games
+     *  using POOL. */
+    private void iterate(int k, int iterations, int pairs,
+                         ExecutorService pool) {
+        double c = Math.max(MIN_PERTURBATION,
+                            PERTURBATION / Math.pow(k, GAMMA));
+        double stability = STABILITY * iterations;
+        double a = STEP * Math.pow(1 + stability, ALPHA)
+            / Math.pow(k + stability, ALPHA);
+        int[] delta = new int[_theta.length];
+        for (int i = 0; i < delta.length; i += 1) {
+            delta[i] = _random.nextBoolean() ? 1 : -1;
+        }
+        WeightedEvaluator plus =
+            new WeightedEvaluator(round(_theta, c, delta));
+        WeightedEvaluator minus =
+            new WeightedEvaluator(round(_theta, -c, delta));
+
+        ArrayList<Future<Side>> games = new ArrayList<>();
+        for (int p = 0; p < pairs; p += 1) {
+            long seed = _random.nextLong();
+            int size = _sizes[p % _sizes.length];
+            games.add(pool.submit(() -> play(plus, minus, size, seed)));
+            games.add(pool.submit(() -> play(minus, plus, size, seed)));
+        }
+        int score = 0;
+        for (int g = 0; g < games.size(); g += 1) {
+            Side winner;
+            try {
+                winner = games.get(g).get();
+            } catch (InterruptedException | ExecutionException excp) {
+                throw new Error("tuning game failed", excp);
+            }
+            boolean plusIsRed = g % 2 == 0;
+            score += (winner == RED) == plusIsRed ? 1 : -1;
+        }
+        double result = (double) score / games.size();
+        for (int i = 0; i < _theta.length; i += 1) {
+            _theta[i] += a * result * delta[i];
+        }
+        Utils.debug(1, "tune iteration %d: score %+d of %d; weights %s",
+                    k, score, games.size(),
+                    Arrays.toString(round(_theta, 0, null)));
+    }
+
+    /** Return the result of a game on a SIZE x SIZE board from an
+     *  opening determined by SEED between an AI playing Red that
+     *  evaluates positions with RED and one playing Blue that uses
+     *  BLUE. */
+    private Side play(Evaluator red, Evaluator blue, int size, long seed) {
+        Game game = _games.newGame(size, seed);
+        game.setEvaluator(RED, red);
+        game.setEvaluator(BLUE, blue);
+        SelfPlay.playOpening(game, seed, (n) -> { });
+        return game.playGame();
+    }
+
+    /** Return the elements of THETA, each displaced by SCALE times the
+     *  corresponding element of DELTA (or not at all if DELTA is null),
+     *  rounded to integers. */
+    private static int[] round(double[] theta, double scale, int[] delta) {
+        int[] result = new int[theta.length];
+        for (int i = 0; i < theta.length; i += 1) {
+            double d = delta == null ? 0 : scale * delta[i];
+            result[i] = (int) Math.round(theta[i] + d);
+        }
+        return result;
+    }
+
+    /** Initial size of the perturbation of each weight. */
+    private static final double PERTURBATION = 2.0;
+    /** Least size of the perturbation of each weight.  Weights are
+     *  integers, so smaller perturbations would vanish in rounding. */
+    private static final double MIN_PERTURBATION = 1.0;
+    /** Change in each weight in the first iteration when one perturbation
+     *  wins every game. */
+    private static final double STEP = 2.0;
+    /** Offset of the iteration number in the step-size sequence, as a
+     *  fraction of the total number of iterations. */
+    private static final double STABILITY = 0.1;
+    /** Exponent of the decay of the step size. */
+    private static final double ALPHA = 0.602;
+    /** Exponent of the decay of the perturbation size. */
+    private static final double GAMMA = 0.101;
+
+    /** Current weights, indexed by Feature ordinal. */
+    private final double[] _theta;
+    /** Board sizes of successive pairs of games. */
+    private final int[] _sizes;
+    /** Number of games played at once. */
+    private final int _threads;
+    /** Source of the Games played. */
+    private final SelfPlay _games;
+    /** Source of perturbations and opening seeds. */
+    private final Random _random;
+}
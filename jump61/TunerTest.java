@@ -0,0 +1,25 @@
+package jump61;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of Tuners.
+ *  @author yuxinye
+ */
+public class TunerTest {
+
+    @Test
+    public void testTuneWritesWeights() throws IOException {
+        File output = File.createTempFile("jump61", ".weights");
+        output.deleteOnExit();
+        Tuner tuner = new Tuner(new WeightedEvaluator(), new int[] { 3 }, 2,
+                                  1, 61);
+        WeightedEvaluator result = tuner.tune(2, 2, output);
+        assertEquals("weights file differs from result", result,
+                     WeightedEvaluator.read(output));
+    }
+
+}
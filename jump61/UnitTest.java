@@ -10,7 +10,22 @@ public class UnitTest {
     /** Run the JUnit tests in this package. Add xxxTest.class entries to
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
-        System.exit(textui.runClasses(jump61.BoardTest.class));
+        System.exit(textui.runClasses(jump61.BoardTest.class,
+                                         jump61.TablebaseTest.class,
+                                         jump61.WeightedEvaluatorTest.class,
+                                         jump61.TunerTest.class,
+                                         jump61.SelfPlayTest.class,
+                                         jump61.TournamentTest.class,
+                                         jump61.SPRTTest.class,
+                                         jump61.PerftTest.class,
+                                         jump61.SearchStatsTest.class,
+                                         jump61.AITest.class,
+                                         jump61.OpeningBookTest.class,
+                                         jump61.BitBoardTest.class,
+                                         jump61.TranspositionTableTest.class,
+                                         jump61.SearcherTest.class,
+                                         jump61.GameTest.class,
+                                         jump61.MCTSPlayerTest.class));
     }
 
 }
@@ -0,0 +1,193 @@
+package jump61;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.Arrays;
+
+import static jump61.Side.*;
+import static jump61.GameException.error;
+import static jump61.Utils.*;
+
+/** An Evaluator that scores a position as a weighted sum of features of
+ *  the squares owned by each side, Red's counting positively and Blue's
+ *  negatively.  The features are all computed in one pass over the
+ *  board, without allocating storage.
+ *
+ *  Weights may be read from a file in which each non-blank line not
+ *  starting with '#' contains the name of a Feature (in any case) and an
+ *  integer weight.  Features not mentioned keep their default weights.
+ *
+ *  The default weights give weight 1 to SQUARES and 0 to all other
+ *  features, so that by default a position is valued by the difference
+ *  between the numbers of squares owned by Red and Blue.  The other
+ *  features are used only when weights are read or tuned (see Tuner).
+ *  @author yuxinye
+ */
+class WeightedEvaluator implements Evaluator {
+
+    /** The features that contribute to an evaluation. */
+    enum Feature {
+        /** An owned square. */
+        SQUARES,
+        /** A spot on an owned square. */
+        SPOTS,
+        /** An owned square that will explode when next played. */
+        CRITICAL,
+        /** An owned square adjacent to an opposing critical square, so
+         *  that the opponent can capture it immediately. */
+        VULNERABLE,
+        /** An owned corner square. */
+        CORNERS,
+        /** An owned edge square other than a corner. */
+        EDGES,
+        /** A pair of adjacent owned critical squares, through which an
+         *  explosion would continue. */
+        CHAINS;
+    }
+
+    /** All Features, indexed by ordinal. */
+    static final Feature[] FEATURES = Feature.values();
+
+    /** An evaluator with the default weights. */
+    WeightedEvaluator() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    /** An evaluator in which WEIGHTS[F.ordinal()] is the weight of
+     *  Feature F. */
+    WeightedEvaluator(int[] weights) {
+        if (weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("wrong number of weights");
+        }
+        _weights = weights.clone();
+    }
+
+    /** Return an evaluator whose weights are read from FILE. */
+    static WeightedEvaluator read(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /** Return an evaluator whose weights are read from READER. */
+    static WeightedEvaluator read(Reader reader) throws IOException {
+        int[] weights = DEFAULT_WEIGHTS.clone();
+        BufferedReader input = new BufferedReader(reader);
+        for (String line = input.readLine(); line != null;
+             line = input.readLine()) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw error("bad weight specification: %s", line);
+            }
+            try {
+                Feature feature = Feature.valueOf(parts[0].toUpperCase());
+                weights[feature.ordinal()] = toInt(parts[1]);
+            } catch (IllegalArgumentException excp) {
+                throw error("bad weight specification: %s", line);
+            }
+        }
+        return new WeightedEvaluator(weights);
+    }
+
+    /** Write my weights to OUT in the format accepted by read. */
+    void write(PrintWriter out) {
+        for (Feature feature : FEATURES) {
+            out.printf("%s %d%n", feature.name().toLowerCase(),
+                       weight(feature));
+        }
+        out.flush();
+    }
+
+    /** Return the weight of FEATURE. */
+    int weight(Feature feature) {
+        return _weights[feature.ordinal()];
+    }
+
+    /** Return a copy of my weights, indexed by Feature ordinal. */
+    int[] weights() {
+        return _weights.clone();
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        int total = 0;
+        for (int n = 0; n < board.size() * board.size(); n += 1) {
+            Side side = board.color(n);
+            if (side == WHITE) {
+                continue;
+            }
+            int spots = board.spots(n), neighbors = board.neighbors(n);
+            boolean critical = spots == neighbors;
+            int value = _weights[SQUARES] + spots * _weights[SPOTS];
+            if (critical) {
+                value += _weights[CRITICAL];
+            }
+            if (neighbors == 2) {
+                value += _weights[CORNERS];
+            } else if (neighbors == 3) {
+                value += _weights[EDGES];
+            }
+            boolean vulnerable = false;
+            for (int k = 0; k < neighbors; k += 1) {
+                int m = board.neighbor(n, k);
+                Side other = board.color(m);
+                boolean otherCritical = board.spots(m) == board.neighbors(m);
+                if (other == side) {
+                    if (critical && otherCritical && m > n) {
+                        value += _weights[CHAINS];
+                    }
+                } else if (other != WHITE && otherCritical) {
+                    vulnerable = true;
+                }
+            }
+            if (vulnerable) {
+                value += _weights[VULNERABLE];
+            }
+            total += side == RED ? value : -value;
+        }
+        return Math.max(-MAX_VALUE, Math.min(MAX_VALUE, total));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof WeightedEvaluator
+            && Arrays.equals(_weights, ((WeightedEvaluator) obj)._weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(_weights);
+    }
+
+    /** Index of the weight of Feature.SQUARES. */
+    private static final int SQUARES = Feature.SQUARES.ordinal();
+    /** Index of the weight of Feature.SPOTS. */
+    private static final int SPOTS = Feature.SPOTS.ordinal();
+    /** Index of the weight of Feature.CRITICAL. */
+    private static final int CRITICAL = Feature.CRITICAL.ordinal();
+    /** Index of the weight of Feature.VULNERABLE. */
+    private static final int VULNERABLE = Feature.VULNERABLE.ordinal();
+    /** Index of the weight of Feature.CORNERS. */
+    private static final int CORNERS = Feature.CORNERS.ordinal();
+    /** Index of the weight of Feature.EDGES. */
+    private static final int EDGES = Feature.EDGES.ordinal();
+    /** Index of the weight of Feature.CHAINS. */
+    private static final int CHAINS = Feature.CHAINS.ordinal();
+
+    /** The default weights, indexed by Feature ordinal. */
+    private static final int[] DEFAULT_WEIGHTS = { 1, 0, 0, 0, 0, 0, 0 };
+
+    /** Bound on the magnitude of an evaluation. */
+    private static final int MAX_VALUE = Searcher.WINNINGVALUE - 1;
+
+    /** My weights, indexed by Feature ordinal. */
+    private final int[] _weights;
+}
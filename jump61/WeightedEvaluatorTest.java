@@ -0,0 +1,81 @@
+package jump61;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static jump61.Side.*;
+import static jump61.WeightedEvaluator.Feature.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests of WeightedEvaluators.
+ *  @author yuxinye
+ */
+public class WeightedEvaluatorTest {
+
+    /** Return an evaluator giving weight 1 to FEATURE and 0 to all
+     *  others. */
+    private static WeightedEvaluator only(WeightedEvaluator.Feature feature) {
+        int[] weights = new int[WeightedEvaluator.FEATURES.length];
+        weights[feature.ordinal()] = 1;
+        return new WeightedEvaluator(weights);
+    }
+
+    @Test
+    public void testFeatures() {
+        Board B = new Board(4);
+        assertEquals("initial board not even", 0,
+                     new WeightedEvaluator().evaluate(B));
+        B.set(1, 1, 2, RED);
+        B.set(1, 2, 3, RED);
+        B.set(2, 2, 3, BLUE);
+        B.set(2, 1, 1, BLUE);
+        assertEquals("wrong squares", 0, only(SQUARES).evaluate(B));
+        assertEquals("wrong spots", 1, only(SPOTS).evaluate(B));
+        assertEquals("wrong critical", 2, only(CRITICAL).evaluate(B));
+        assertEquals("wrong vulnerable", -2, only(VULNERABLE).evaluate(B));
+        assertEquals("wrong corners", 1, only(CORNERS).evaluate(B));
+        assertEquals("wrong edges", 0, only(EDGES).evaluate(B));
+        assertEquals("wrong chains", 1, only(CHAINS).evaluate(B));
+    }
+
+    @Test
+    public void testDefaultCountsSquares() {
+        Random rand = new Random(61);
+        WeightedEvaluator eval = new WeightedEvaluator();
+        for (int trial = 0; trial < 20; trial += 1) {
+            Board B = SearcherTest.randomPosition(4 + trial % 3,
+                                                  rand.nextInt(40), rand);
+            assertEquals("default is not the square difference",
+                         B.numOfSide(RED) - B.numOfSide(BLUE),
+                         eval.evaluate(B));
+        }
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        WeightedEvaluator eval =
+            WeightedEvaluator.read(new StringReader("# comment\n\n"
+                                                    + "Spots 7\n"
+                                                    + "chains -2\n"));
+        assertEquals("wrong weight", 7, eval.weight(SPOTS));
+        assertEquals("wrong weight", -2, eval.weight(CHAINS));
+        assertEquals("default not kept",
+                     new WeightedEvaluator().weight(SQUARES),
+                     eval.weight(SQUARES));
+        StringWriter out = new StringWriter();
+        eval.write(new PrintWriter(out));
+        assertEquals("write and read differ", eval,
+                     WeightedEvaluator.read(new StringReader(out.toString())));
+    }
+
+    @Test(expected = GameException.class)
+    public void testBadWeights() throws IOException {
+        WeightedEvaluator.read(new StringReader("sparks 3\n"));
+    }
+
+}